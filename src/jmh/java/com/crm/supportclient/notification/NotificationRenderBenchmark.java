@@ -0,0 +1,86 @@
+package com.crm.supportclient.notification;
+
+import com.crm.supportclient.model.Ticket;
+import com.crm.supportclient.observer.ClientNotification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendu d'une notification client : modèle précompilé ({@link ClientNotification}) contre
+ * l'ancien {@code String.format} sur un bloc de texte. Le canal ne fait que mesurer le
+ * message, pour ne comparer que le rendu.
+ * <pre>
+ *   mvn -Pbench compile exec:exec@bench -Dbench.args="NotificationRenderBenchmark -f 1"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class NotificationRenderBenchmark {
+
+    private static final int CLIENT_ID = 42;
+    private static final String EMAIL = "jean.dupont@email.com";
+
+    private Ticket ticket;
+    private ClientNotification notification;
+    private int rendered;
+
+    @Setup
+    public void setUp() {
+        Ticket.setNotificationDispatcher((t, transitions, observers) -> { });
+        ticket = new Ticket("Imprimante hors service", "Plus rien ne sort depuis ce matin", "Haute");
+        ticket.creer();
+        ticket.assigner(UUID.randomUUID());
+        ticket.resoudre("Pilote reinstalle");
+        notification = new ClientNotification(CLIENT_ID, EMAIL, Locale.FRENCH,
+            (destinataire, message) -> rendered = message.length());
+    }
+
+    @Benchmark
+    public int modelePrecompile() {
+        notification.update(ticket);
+        return rendered;
+    }
+
+    /** Rendu d'origine, avant les modèles précompilés. */
+    @Benchmark
+    public int stringFormat() {
+        String message = String.format(
+            """
+            ===========================================================
+            NOTIFICATION CLIENT
+            ===========================================================
+            Destinataire: %s (Client #%d)
+            
+            Votre ticket #%d a ete mis a jour!
+            
+            Titre: %s
+            Nouveau statut: %s
+            Date de creation: %s
+            %s
+            ===========================================================
+            """,
+            EMAIL,
+            CLIENT_ID,
+            ticket.getId(),
+            ticket.getTitre(),
+            ticket.getStatut().getLibelle(),
+            ticket.getDateCreation(),
+            ticket.getSolution() != null ? "Solution: " + ticket.getSolution() : ""
+        );
+        return message.length();
+    }
+}
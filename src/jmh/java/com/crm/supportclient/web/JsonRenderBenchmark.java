@@ -0,0 +1,142 @@
+package com.crm.supportclient.web;
+
+import com.crm.supportclient.model.Ticket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendu d'une page de tickets ({@code GET /api/tickets}) : {@link JsonWriter} contre l'ancienne
+ * concaténation (StringBuilder, {@code escapeJson} à cinq {@code replace}, copie en UTF-8 du
+ * document entier). Le corps est écrit dans un flux qui ne fait que compter les octets.
+ * <pre>
+ *   mvn -Pbench compile exec:exec@bench -Dbench.args="JsonRenderBenchmark -f 1"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JsonRenderBenchmark {
+
+    private static final int PAGE = 50;
+
+    /** Textes sans rien à échapper, ou avec guillemets, retours à la ligne et accents. */
+    @Param({"simple", "echappe"})
+    public String texte;
+
+    private final List<Ticket> tickets = new ArrayList<>();
+    private final CountingStream sink = new CountingStream();
+
+    @Setup
+    public void setUp() {
+        Ticket.setNotificationDispatcher((t, transitions, observers) -> { });
+        boolean echappe = texte.equals("echappe");
+        for (int i = 0; i < PAGE; i++) {
+            Ticket ticket = echappe
+                ? new Ticket("Écran \"bleu\" au démarrage #" + i,
+                    "Message affiché :\n\t\"STOP 0x7B\"\r\nPlus rien ne répond, même en mode sans échec", "Haute")
+                : new Ticket("Imprimante hors service " + i,
+                    "Plus rien ne sort depuis ce matin, le voyant reste orange", "Moyenne");
+            ticket.creer();
+            tickets.add(ticket);
+        }
+    }
+
+    @Benchmark
+    public long jsonWriter() throws IOException {
+        sink.count = 0;
+        JsonWriter json = new JsonWriter(sink);
+        json.beginObject().name("tickets").beginArray();
+        for (Ticket ticket : tickets) {
+            json.beginObject()
+                .name("id").value(ticket.getId())
+                .name("titre").value(ticket.getTitre())
+                .name("description").value(ticket.getDescription())
+                .name("priorite").value(ticket.getPriorite())
+                .name("statut").value(ticket.getStatut().getLibelle())
+                .name("etat").value(ticket.getState().getNomEtat())
+                .name("solution").value(ticket.getSolution() != null ? ticket.getSolution() : "")
+                .name("version").value(ticket.getVersion())
+                .name("changeVersion").value(ticket.getChangeVersion())
+                .name("clientId").value(ticket.getClientId())
+                .name("parentId").value(ticket.getParentId())
+                .name("dateCreation").value(ticket.getDateCreation().toString())
+                .endObject();
+        }
+        json.endArray().name("nextCursor").nullValue().endObject();
+        json.flush();
+        return sink.count;
+    }
+
+    /** Chemin d'origine, avant {@link JsonWriter}. */
+    @Benchmark
+    public long concatenation() throws IOException {
+        sink.count = 0;
+        StringBuilder page = new StringBuilder("{\"tickets\":[");
+        for (int i = 0; i < tickets.size(); i++) {
+            if (i > 0) page.append(",");
+            page.append(ticketToJson(tickets.get(i)));
+        }
+        page.append("],\"nextCursor\":null}");
+        sink.write(page.toString().getBytes(StandardCharsets.UTF_8));
+        return sink.count;
+    }
+
+    private static String ticketToJson(Ticket ticket) {
+        return new StringBuilder("{")
+            .append("\"id\":").append(ticket.getId())
+            .append(",\"titre\":\"").append(escapeJson(ticket.getTitre())).append("\"")
+            .append(",\"description\":\"").append(escapeJson(ticket.getDescription())).append("\"")
+            .append(",\"priorite\":\"").append(escapeJson(ticket.getPriorite())).append("\"")
+            .append(",\"statut\":\"").append(ticket.getStatut().getLibelle()).append("\"")
+            .append(",\"etat\":\"").append(ticket.getState().getNomEtat()).append("\"")
+            .append(",\"solution\":\"")
+            .append(escapeJson(ticket.getSolution() != null ? ticket.getSolution() : "")).append("\"")
+            .append(",\"version\":").append(ticket.getVersion())
+            .append(",\"changeVersion\":").append(ticket.getChangeVersion())
+            .append(",\"clientId\":").append(ticket.getClientId())
+            .append(",\"parentId\":").append(ticket.getParentId())
+            .append(",\"dateCreation\":\"").append(ticket.getDateCreation()).append("\"")
+            .append("}").toString();
+    }
+
+    private static String escapeJson(String text) {
+        if (text == null) return "";
+        return text.replace("\\", "\\\\")
+                   .replace("\"", "\\\"")
+                   .replace("\n", "\\n")
+                   .replace("\r", "\\r")
+                   .replace("\t", "\\t");
+    }
+
+    /** Corps de réponse qui ne garde que le nombre d'octets reçus. */
+    private static final class CountingStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -96,8 +96,8 @@ public class Main {
 
         System.out.println("\n> ETAPE 3: Enregistrement du ticket");
         System.out.println("-".repeat(50));
-        ticket.creer();
         portail.ajouterTicket(client.getId(), ticket);
+        ticket.creer();
 
         System.out.println("\n> ETAPE 4: Assignation du ticket (Etat: Ouvert -> Assigne)");
         System.out.println("-".repeat(50));
@@ -1,6 +1,7 @@
 package com.crm.supportclient.model;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Article de la base de connaissances (FAQ).
@@ -13,10 +14,10 @@ public class ArticleBaseConnaissance {
     private LocalDateTime dateCreation;
     private LocalDateTime derniereModification;
     
-    private static int idCounter = 1;
+    private static final AtomicInteger idCounter = new AtomicInteger(1);
 
     public ArticleBaseConnaissance() {
-        this.id = idCounter++;
+        this.id = idCounter.getAndIncrement();
         this.dateCreation = LocalDateTime.now();
         this.derniereModification = LocalDateTime.now();
     }
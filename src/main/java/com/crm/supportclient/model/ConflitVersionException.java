@@ -0,0 +1,31 @@
+package com.crm.supportclient.model;
+
+/** Levée quand un ticket a été modifié depuis la version lue par l'appelant. */
+public class ConflitVersionException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int ticketId;
+    private final long versionAttendue;
+    private final long versionActuelle;
+
+    public ConflitVersionException(int ticketId, long versionAttendue, long versionActuelle) {
+        super("Le ticket #" + ticketId + " a ete modifie (version attendue: "
+            + versionAttendue + ", version actuelle: " + versionActuelle + ")");
+        this.ticketId = ticketId;
+        this.versionAttendue = versionAttendue;
+        this.versionActuelle = versionActuelle;
+    }
+
+    public int getTicketId() {
+        return ticketId;
+    }
+
+    public long getVersionAttendue() {
+        return versionAttendue;
+    }
+
+    public long getVersionActuelle() {
+        return versionActuelle;
+    }
+}
@@ -1,39 +1,62 @@
 package com.crm.supportclient.model;
 
+import com.crm.supportclient.observer.NotificationDispatcher;
 import com.crm.supportclient.observer.TicketObserver;
+import com.crm.supportclient.state.ActionTicket;
+import com.crm.supportclient.state.MachineEtats;
 import com.crm.supportclient.state.TicketState;
-import com.crm.supportclient.state.EtatOuvert;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 /**
  * Entité Ticket - Utilise State et Observer patterns.
+ * Le cycle de vie (statut, état, solution, agent) est porté par un {@link TicketSnapshot}
+ * versionné, remplacé par compare-and-set : les transitions concurrentes ne se
+ * mélangent jamais et n'ont pas besoin de verrou.
+ * Une fois créé, chaque changement est aussi inscrit au {@link TicketChangeLog} partagé,
+ * qui lui attribue une version globale ({@link #getChangeVersion()}), après avoir été signalé
+ * à son {@link TicketChangeListener} : les index suivent sans passer par les notifications,
+ * et sont à jour quand la nouvelle version devient visible.
  */
 public class Ticket {
+
+    /** Version attendue "quelconque" : la transition est rejouée en cas de conflit. */
+    public static final long VERSION_QUELCONQUE = -1;
     
     private int id;
     private String titre;
     private String description;
     private String priorite;
     private LocalDateTime dateCreation;
-    private LocalDateTime dateResolution;
-    private StatutTicket statut;
-    private String solution;
-    private UUID assignedSupportId;
+    private int clientId;
+    private volatile int parentId;
+    /** Les changements ne sont journalisés qu'après {@link #creer()}, et plus après le retrait. */
+    private volatile boolean cree;
+    private volatile boolean retire;
+    private final AtomicLong changeVersion = new AtomicLong();
+    /** Index tenus à jour à chaque changement journalisé (null = aucun). */
+    private volatile TicketChangeListener changeListener;
     
-    private TicketState state;
-    private final List<TicketObserver> observers;
-    private static int idCounter = 1;
+    private final AtomicReference<TicketSnapshot> snapshot;
+    private final CopyOnWriteArrayList<TicketObserver> observers;
+    private static final AtomicInteger idCounter = new AtomicInteger(1);
+    private static volatile NotificationDispatcher notificationDispatcher = NotificationDispatcher.SYNCHRONE;
+    private static volatile TicketChangeLog changeLog = new TicketChangeLog();
 
     public Ticket() {
-        this.id = idCounter++;
+        this.id = idCounter.getAndIncrement();
         this.dateCreation = LocalDateTime.now();
-        this.statut = StatutTicket.OUVERT;
-        this.state = new EtatOuvert();
-        this.observers = new ArrayList<>();
+        this.snapshot = new AtomicReference<>(
+            new TicketSnapshot(0, StatutTicket.OUVERT, null, null, null));
+        this.observers = new CopyOnWriteArrayList<>();
     }
 
     public Ticket(String titre, String description, String priorite) {
@@ -48,46 +71,183 @@ public class Ticket {
         System.out.println("[OK] Ticket #" + id + " cree avec succes.");
         System.out.println("   Titre: " + titre);
         System.out.println("   Priorite: " + priorite);
-        System.out.println("   Etat initial: " + state.getNomEtat());
-        notifyObservers();
+        System.out.println("   Etat initial: " + getState().getNomEtat());
+        cree = true;
+        journaliser();
+        notifyObservers(new TransitionTicket(null, getStatut(), getVersion(), LocalDateTime.now()));
     }
 
     /** Assigne le ticket à un agent. */
     public void assigner(UUID supportId) {
-        this.assignedSupportId = supportId;
-        state.assigner(this);
+        assigner(supportId, VERSION_QUELCONQUE);
+    }
+
+    /** Assigne le ticket si sa version est toujours {@code versionAttendue}. */
+    public TicketSnapshot assigner(UUID supportId, long versionAttendue) {
+        return transitionner(ActionTicket.ASSIGNER, versionAttendue,
+            courant -> courant.state().assigner(this, courant, supportId));
     }
 
     /** Résout le ticket. */
     public void resoudre(String solution) {
-        state.resoudre(this, solution);
+        resoudre(solution, VERSION_QUELCONQUE);
+    }
+
+    /** Résout le ticket si sa version est toujours {@code versionAttendue}. */
+    public TicketSnapshot resoudre(String solution, long versionAttendue) {
+        return transitionner(ActionTicket.RESOUDRE, versionAttendue,
+            courant -> courant.state().resoudre(this, courant, solution));
     }
 
     /** Ferme le ticket. */
     public void fermer() {
-        state.fermer(this);
+        fermer(VERSION_QUELCONQUE);
+    }
+
+    /** Ferme le ticket si sa version est toujours {@code versionAttendue}. */
+    public TicketSnapshot fermer(long versionAttendue) {
+        return transitionner(ActionTicket.FERMER, versionAttendue,
+            courant -> courant.state().fermer(this, courant));
+    }
+
+    /**
+     * Calcule l'instantané suivant puis l'installe par compare-and-set.
+     * Sans version attendue, la transition est recalculée si un autre thread
+     * est passé entre-temps ; avec une version, le conflit est remonté à l'appelant.
+     * Le changement de statut doit figurer dans la table de {@link MachineEtats}.
+     * La trace de l'état n'est écrite qu'une fois, pour la transition effectivement appliquée.
+     */
+    private TicketSnapshot transitionner(ActionTicket action, long versionAttendue,
+                                         UnaryOperator<TicketSnapshot> transition) {
+        while (true) {
+            TicketSnapshot courant = snapshot.get();
+            verifierVersion(courant, versionAttendue);
+            TicketSnapshot suivant;
+            try {
+                suivant = transition.apply(courant);
+            } catch (IllegalStateException e) {
+                System.out.println("[État " + courant.state().getNomEtat() + "] " + e.getMessage());
+                throw e;
+            }
+            if (suivant == courant) {
+                System.out.println(courant.state().decrire(this, action, suivant));
+                return courant;
+            }
+            if (suivant.statut() != courant.statut()
+                    && !MachineEtats.estAutorisee(courant.statut(), action, suivant.statut())) {
+                throw new IllegalStateException("Transition non declaree: " + courant.statut()
+                    + " --" + action + "--> " + suivant.statut());
+            }
+            suivant = suivant.avecVersion(courant.version() + 1);
+            if (snapshot.compareAndSet(courant, suivant)) {
+                System.out.println(courant.state().decrire(this, action, suivant));
+                journaliser();
+                notifyObservers(new TransitionTicket(
+                    courant.statut(), suivant.statut(), suivant.version(), LocalDateTime.now()));
+                return suivant;
+            }
+        }
+    }
+
+    private void verifierVersion(TicketSnapshot courant, long versionAttendue) {
+        if (versionAttendue != VERSION_QUELCONQUE && courant.version() != versionAttendue) {
+            throw new ConflitVersionException(id, versionAttendue, courant.version());
+        }
+    }
+
+    /** Modification hors transition (setters) : nouvelle version, sans notification. */
+    private void modifier(UnaryOperator<TicketSnapshot> modification) {
+        snapshot.updateAndGet(courant -> modification.apply(courant).avecVersion(courant.version() + 1));
+        journaliser();
+    }
+
+    /**
+     * Retire le ticket (suppression ou archivage) : pierre tombale dans le journal des
+     * changements, qui n'enregistre plus rien pour lui ensuite. Renvoie la version attribuée.
+     */
+    public long retirer(TicketChangeLog.Nature nature) {
+        if (nature == TicketChangeLog.Nature.MODIFIE) {
+            throw new IllegalArgumentException("Retrait attendu: SUPPRIME ou ARCHIVE");
+        }
+        retire = true;
+        long version = changeLog.record(id, nature);
+        changeVersion.accumulateAndGet(version, Math::max);
+        return version;
+    }
+
+    /** Ticket supprimé ou archivé : les index doivent l'oublier. */
+    public boolean estRetire() {
+        return retire;
+    }
+
+    /** Version globale du dernier changement journalisé (0 avant la création). */
+    public long getChangeVersion() {
+        return changeVersion.get();
+    }
+
+    private void journaliser() {
+        if (cree && !retire) {
+            TicketChangeListener listener = changeListener;
+            if (listener != null) {
+                listener.ticketChanged(this);
+            }
+            changeVersion.accumulateAndGet(changeLog.record(id, TicketChangeLog.Nature.MODIFIE), Math::max);
+        }
     }
 
-    /** Ajoute un observateur. */
+    /**
+     * Écouteur appelé de façon synchrone à chaque changement (transition, setters), juste avant
+     * son inscription au journal et la notification des observateurs. Posé par le portail qui
+     * indexe le ticket.
+     */
+    public void setChangeListener(TicketChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+    /**
+     * Ajoute un observateur propre à ce ticket, en plus des abonnés du
+     * {@link com.crm.supportclient.observer.SubscriptionRegistry}.
+     */
     public void attach(TicketObserver observer) {
-        if (!observers.contains(observer)) {
-            observers.add(observer);
+        if (observers.addIfAbsent(observer)) {
             System.out.println("[+] Observateur ajoute au ticket #" + id);
         }
     }
 
-    /** Retire un observateur. */
+    /** Retire un observateur ; le dispatcher libère ce qu'il gardait pour lui (file d'attente). */
     public void detach(TicketObserver observer) {
-        observers.remove(observer);
+        if (observers.remove(observer)) {
+            notificationDispatcher.forget(observer);
+        }
         System.out.println("[-] Observateur retire du ticket #" + id);
     }
 
-    /** Notifie les observateurs. */
+    /** Notifie les observateurs (via le dispatcher configuré). */
     public void notifyObservers() {
-        System.out.println("\n[NOTIFY] Notification de " + observers.size() + " observateur(s)...\n");
-        for (TicketObserver observer : observers) {
-            observer.update(this);
-        }
+        TicketSnapshot courant = snapshot.get();
+        notifyObservers(new TransitionTicket(courant.statut(), courant.statut(), courant.version(), LocalDateTime.now()));
+    }
+
+    private void notifyObservers(TransitionTicket transition) {
+        System.out.println("\n[NOTIFY] Notification du ticket #" + id + " (" + observers.size() + " observateur(s) attache(s))...\n");
+        notificationDispatcher.dispatch(this, List.of(transition), observers);
+    }
+
+    /** Choisit la stratégie de livraison des notifications (synchrone par défaut). */
+    public static void setNotificationDispatcher(NotificationDispatcher dispatcher) {
+        notificationDispatcher = dispatcher != null ? dispatcher : NotificationDispatcher.SYNCHRONE;
+    }
+
+    public static NotificationDispatcher getNotificationDispatcher() {
+        return notificationDispatcher;
+    }
+
+    /** Journal des changements partagé par tous les tickets (un journal neuf si {@code null}). */
+    public static void setChangeLog(TicketChangeLog log) {
+        changeLog = log != null ? log : new TicketChangeLog();
+    }
+
+    public static TicketChangeLog getChangeLog() {
+        return changeLog;
     }
 
     public int getId() {
@@ -104,6 +264,7 @@ public class Ticket {
 
     public void setTitre(String titre) {
         this.titre = titre;
+        journaliser();
     }
 
     public String getDescription() {
@@ -112,6 +273,7 @@ public class Ticket {
 
     public void setDescription(String description) {
         this.description = description;
+        journaliser();
     }
 
     public String getPriorite() {
@@ -120,6 +282,7 @@ public class Ticket {
 
     public void setPriorite(String priorite) {
         this.priorite = priorite;
+        journaliser();
     }
 
     public LocalDateTime getDateCreation() {
@@ -128,46 +291,76 @@ public class Ticket {
 
     public void setDateCreation(LocalDateTime dateCreation) {
         this.dateCreation = dateCreation;
+        journaliser();
+    }
+
+    /** Client propriétaire du ticket (0 si inconnu). */
+    public int getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(int clientId) {
+        this.clientId = clientId;
+        journaliser();
+    }
+
+    /** Ticket parent dont celui-ci est un doublon (0 si aucun). */
+    public int getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(int parentId) {
+        this.parentId = parentId;
+        journaliser();
     }
 
     public LocalDateTime getDateResolution() {
-        return dateResolution;
+        return snapshot.get().dateResolution();
     }
 
     public void setDateResolution(LocalDateTime dateResolution) {
-        this.dateResolution = dateResolution;
+        modifier(s -> s.avecSolution(s.solution(), dateResolution));
     }
 
     public StatutTicket getStatut() {
-        return statut;
+        return snapshot.get().statut();
     }
 
     public void setStatut(StatutTicket statut) {
-        this.statut = statut;
+        modifier(s -> s.vers(statut));
     }
 
     public TicketState getState() {
-        return state;
+        return snapshot.get().state();
     }
 
     public void setState(TicketState state) {
-        this.state = state;
+        modifier(s -> s.vers(MachineEtats.statutDe(state)));
     }
 
     public String getSolution() {
-        return solution;
+        return snapshot.get().solution();
     }
 
     public void setSolution(String solution) {
-        this.solution = solution;
+        modifier(s -> s.avecSolution(solution, s.dateResolution()));
     }
 
     public UUID getAssignedSupportId() {
-        return assignedSupportId;
+        return snapshot.get().assignedSupportId();
     }
 
     public void setAssignedSupportId(UUID assignedSupportId) {
-        this.assignedSupportId = assignedSupportId;
+        modifier(s -> s.avecAgent(assignedSupportId));
+    }
+
+    /** Instantané cohérent du cycle de vie (statut, état, solution, agent, version). */
+    public TicketSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    public long getVersion() {
+        return snapshot.get().version();
     }
 
     public List<TicketObserver> getObservers() {
@@ -176,9 +369,10 @@ public class Ticket {
 
     @Override
     public String toString() {
+        TicketSnapshot courant = snapshot.get();
         return String.format(
-            "Ticket{id=%d, titre='%s', priorite='%s', statut=%s, état=%s}",
-            id, titre, priorite, statut, state.getNomEtat()
+            "Ticket{id=%d, titre='%s', priorite='%s', statut=%s, état=%s, version=%d}",
+            id, titre, priorite, courant.statut(), courant.state().getNomEtat(), courant.version()
         );
     }
 }
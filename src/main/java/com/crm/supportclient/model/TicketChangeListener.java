@@ -0,0 +1,13 @@
+package com.crm.supportclient.model;
+
+/**
+ * Écouteur synchrone des changements d'un ticket, appelé par le thread qui vient de le
+ * modifier, juste avant l'inscription au {@link TicketChangeLog} : une réponse étiquetée
+ * avec la nouvelle version du journal voit des index déjà à jour. Réservé à la tenue des
+ * index : contrairement aux observateurs, aucun changement n'est regroupé, retardé ni perdu.
+ */
+@FunctionalInterface
+public interface TicketChangeListener {
+
+    void ticketChanged(Ticket ticket);
+}
@@ -0,0 +1,183 @@
+package com.crm.supportclient.model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Journal des changements de tickets, pour ne relire que ce qui a changé depuis une version.
+ * Chaque création, transition ou modification reçoit une version globale strictement
+ * croissante ; une suppression ou un archivage laisse une pierre tombale, après laquelle plus
+ * aucun changement du ticket n'est enregistré. Un lecteur n'a besoin que de la dernière entrée
+ * de chaque ticket : l'entrée précédente est retirée à chaque changement, et le journal reste
+ * proportionnel au nombre de tickets (pierres tombales comprises), quel que soit leur historique.
+ * <p>
+ * Sans verrou global : les versions viennent d'un {@link AtomicLong}, les entrées sont rangées
+ * par version dans une {@link ConcurrentSkipListMap}, et seuls les changements d'un même ticket
+ * sont sérialisés entre eux. Une version attribuée n'est visible des lecteurs qu'une fois toutes
+ * les précédentes publiées : un lecteur ne voit jamais de trou.
+ * <p>
+ * Les versions repartent de zéro à chaque instance : un client les reçoit sous forme de
+ * {@linkplain #jeton jeton} préfixé par l'époque de l'instance, pour qu'une version d'avant un
+ * redémarrage ne soit jamais prise pour une version de celle-ci.
+ */
+public class TicketChangeLog {
+
+    public enum Nature {
+        /** Création, transition ou modification : relire le ticket. */
+        MODIFIE,
+        /** Ticket supprimé. */
+        SUPPRIME,
+        /** Ticket fermé retiré du dépôt actif. */
+        ARCHIVE
+    }
+
+    /** Dernier changement d'un ticket. */
+    public record Change(long version, int ticketId, Nature nature) {
+        public boolean estPierreTombale() {
+            return nature != Nature.MODIFIE;
+        }
+    }
+
+    /**
+     * Changements postérieurs à la version demandée, par version croissante ; {@code version}
+     * est à repasser à l'appel suivant, {@code suite} indique que la limite a coupé la liste.
+     */
+    public record Delta(List<Change> changes, long version, boolean suite) {
+    }
+
+    /** Versions attribuées mais pas encore publiées, au plus (enregistrements simultanés). */
+    private static final int FENETRE = 1024;
+
+    private final String epoque = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong compteur = new AtomicLong();
+    /** Toutes les versions jusqu'à celle-ci sont publiées : limite de lecture. */
+    private final AtomicLong publiee = new AtomicLong();
+    /** Case {@code v % FENETRE} : vaut {@code v} une fois la version {@code v} publiée. */
+    private final AtomicLongArray publiees = new AtomicLongArray(FENETRE);
+    private final ConcurrentSkipListMap<Long, Change> entrees = new ConcurrentSkipListMap<>();
+    /** Entrée en vigueur de chaque ticket. */
+    private final ConcurrentMap<Integer, Change> derniers = new ConcurrentHashMap<>();
+    private final AtomicInteger taille = new AtomicInteger();
+    private volatile Runnable publicationListener;
+
+    /**
+     * Enregistre un changement et renvoie sa version. Un ticket déjà retiré n'enregistre plus
+     * rien : la version de sa pierre tombale est renvoyée.
+     */
+    public long record(int ticketId, Nature nature) {
+        long[] attribuee = {0};
+        Change courant = derniers.compute(ticketId, (id, precedent) -> {
+            if (precedent != null && precedent.estPierreTombale()) {
+                return precedent;
+            }
+            Change change = new Change(compteur.incrementAndGet(), id, nature);
+            attribuee[0] = change.version();
+            // Retirée avant l'ajout : un lecteur ne voit jamais deux entrées du même ticket
+            if (precedent != null && entrees.remove(precedent.version()) != null) {
+                taille.decrementAndGet();
+            }
+            entrees.put(change.version(), change);
+            taille.incrementAndGet();
+            return change;
+        });
+        if (attribuee[0] != 0) {
+            publier(attribuee[0]);
+            Runnable listener = publicationListener;
+            if (listener != null) {
+                listener.run();
+            }
+        }
+        return courant.version();
+    }
+
+    /**
+     * Écouteur appelé de façon synchrone par le thread qui vient d'enregistrer un changement,
+     * une fois sa version publiée. Si une version antérieure est encore en vol, la limite de
+     * lecture n'avance qu'avec elle : l'écouteur de ce thread-là verra les deux. Un lecteur qui
+     * relit {@link #since} depuis sa dernière version à chaque appel ne manque donc rien.
+     */
+    public void setPublicationListener(Runnable listener) {
+        this.publicationListener = listener;
+    }
+
+    /**
+     * Marque la version publiée puis avance la limite de lecture sur toutes les versions
+     * consécutives déjà publiées ; le dernier à publier d'une série fait avancer la limite.
+     */
+    private void publier(long version) {
+        while (version - publiee.get() > FENETRE) {
+            // Case encore occupée par une version non publiée : ne pas l'écraser
+            Thread.yield();
+        }
+        publiees.set(caseDe(version), version);
+        while (true) {
+            long limite = publiee.get();
+            if (publiees.get(caseDe(limite + 1)) != limite + 1) {
+                return;
+            }
+            publiee.compareAndSet(limite, limite + 1);
+        }
+    }
+
+    private static int caseDe(long version) {
+        return (int) (version % FENETRE);
+    }
+
+    /** Version jusqu'à laquelle tous les changements sont lisibles (0 si aucun). */
+    public long version() {
+        return publiee.get();
+    }
+
+    /** Jeton de reprise {@code <époque>-<version>} à remettre au client. */
+    public String jeton(long version) {
+        return epoque + "-" + version;
+    }
+
+    /**
+     * Version portée par un jeton de cette instance, ou -1 s'il vient d'une autre instance
+     * (serveur redémarré) ou d'une version pas encore attribuée : le client doit tout relire.
+     * Un jeton sans époque n'est accepté que pour {@code 0}, le tout début du journal.
+     *
+     * @throws NumberFormatException si le jeton est mal formé
+     */
+    public long versionDuJeton(String jeton) {
+        int separateur = jeton.lastIndexOf('-');
+        long version = Long.parseLong(jeton.substring(separateur + 1).trim());
+        boolean memeInstance = separateur < 0 ? version == 0 : jeton.substring(0, separateur).equals(epoque);
+        return memeInstance && version <= version() ? version : -1;
+    }
+
+    /** Nombre d'entrées conservées. */
+    public int size() {
+        return taille.get();
+    }
+
+    /**
+     * Dernier changement de chaque ticket modifié ou retiré après {@code depuis}, au plus
+     * {@code limite}. Coûte O(log n + limite) : seule la fin du journal est parcourue.
+     */
+    public Delta since(long depuis, int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("limite doit etre >= 1: " + limite);
+        }
+        long jusqua = publiee.get();
+        if (depuis >= jusqua) {
+            return new Delta(List.of(), jusqua, false);
+        }
+        Iterator<Change> it = entrees.subMap(depuis, false, jusqua, true).values().iterator();
+        List<Change> changes = new ArrayList<>();
+        while (it.hasNext() && changes.size() < limite) {
+            changes.add(it.next());
+        }
+        boolean suite = it.hasNext();
+        return new Delta(changes, suite ? changes.get(changes.size() - 1).version() : jusqua, suite);
+    }
+}
@@ -0,0 +1,44 @@
+package com.crm.supportclient.model;
+
+import com.crm.supportclient.state.MachineEtats;
+import com.crm.supportclient.state.TicketState;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Instantané immuable du cycle de vie d'un ticket.
+ * Le ticket le remplace atomiquement (compare-and-set) à chaque transition,
+ * ce qui garantit que statut, solution et agent restent cohérents entre eux.
+ * L'état n'est pas stocké : il est déduit du statut via {@link MachineEtats}.
+ */
+public record TicketSnapshot(
+    long version,
+    StatutTicket statut,
+    String solution,
+    LocalDateTime dateResolution,
+    UUID assignedSupportId
+) {
+
+    /** État (singleton) correspondant au statut. */
+    public TicketState state() {
+        return MachineEtats.etat(statut);
+    }
+
+    /** Passe dans un nouveau statut. */
+    public TicketSnapshot vers(StatutTicket statut) {
+        return new TicketSnapshot(version, statut, solution, dateResolution, assignedSupportId);
+    }
+
+    public TicketSnapshot avecSolution(String solution, LocalDateTime dateResolution) {
+        return new TicketSnapshot(version, statut, solution, dateResolution, assignedSupportId);
+    }
+
+    public TicketSnapshot avecAgent(UUID assignedSupportId) {
+        return new TicketSnapshot(version, statut, solution, dateResolution, assignedSupportId);
+    }
+
+    TicketSnapshot avecVersion(long version) {
+        return new TicketSnapshot(version, statut, solution, dateResolution, assignedSupportId);
+    }
+}
@@ -0,0 +1,33 @@
+package com.crm.supportclient.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Changement de statut ayant déclenché une notification.
+ * {@code depuis} vaut {@code null} à la création du ticket.
+ */
+public record TransitionTicket(StatutTicket depuis, StatutTicket vers, long version, LocalDateTime date) {
+
+    /** Écrit la transition dans un tampon, sans chaîne intermédiaire. */
+    public void appendTo(StringBuilder out) {
+        out.append(depuis != null ? depuis.getLibelle() : "Creation").append(" -> ").append(vers.getLibelle());
+    }
+
+    /** Écrit une liste de transitions séparées par des virgules. */
+    public static void appendAll(List<TransitionTicket> transitions, StringBuilder out) {
+        for (int i = 0; i < transitions.size(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            transitions.get(i).appendTo(out);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        appendTo(out);
+        return out.toString();
+    }
+}
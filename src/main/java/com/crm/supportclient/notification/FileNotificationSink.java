@@ -0,0 +1,45 @@
+package com.crm.supportclient.notification;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** Ajoute les notifications à la fin d'un fichier texte (UTF-8). */
+public class FileNotificationSink implements NotificationSink, AutoCloseable {
+
+    private final Path path;
+    private final Writer writer;
+
+    public FileNotificationSink(Path path) {
+        this.path = path;
+        try {
+            this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'ouvrir " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized void send(String destinataire, CharSequence message) {
+        try {
+            writer.append(message).append(System.lineSeparator());
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ecriture impossible dans " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+}
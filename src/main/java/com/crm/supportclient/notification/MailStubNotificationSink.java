@@ -0,0 +1,20 @@
+package com.crm.supportclient.notification;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Bouchon d'envoi d'email : trace l'envoi sans contacter de serveur SMTP. */
+public class MailStubNotificationSink implements NotificationSink {
+
+    private final AtomicLong sent = new AtomicLong();
+
+    @Override
+    public void send(String destinataire, CharSequence message) {
+        long numero = sent.incrementAndGet();
+        System.out.println("[MAIL] #" + numero + " -> " + destinataire + " (" + message.length() + " caracteres)");
+        // En production: envoi réel d'email via service de messagerie
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+}
@@ -0,0 +1,33 @@
+package com.crm.supportclient.notification;
+
+/** Canal de sortie d'une notification rendue. */
+@FunctionalInterface
+public interface NotificationSink {
+
+    /** Affichage console (comportement historique). */
+    NotificationSink CONSOLE = (destinataire, message) -> System.out.println(message);
+
+    /**
+     * Envoie le message. Le tampon peut être réutilisé par l'appelant
+     * après le retour : le copier si l'envoi est différé.
+     */
+    void send(String destinataire, CharSequence message);
+
+    /**
+     * Construit un canal à partir de sa description :
+     * {@code console}, {@code mail} ou {@code file:<chemin>}.
+     */
+    static NotificationSink parse(String description) {
+        String value = description.trim();
+        if (value.equalsIgnoreCase("console")) {
+            return CONSOLE;
+        }
+        if (value.equalsIgnoreCase("mail")) {
+            return new MailStubNotificationSink();
+        }
+        if (value.startsWith("file:")) {
+            return new FileNotificationSink(java.nio.file.Path.of(value.substring("file:".length())));
+        }
+        throw new IllegalArgumentException("Canal de notification inconnu: " + description);
+    }
+}
@@ -0,0 +1,120 @@
+package com.crm.supportclient.notification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Modèle de notification compilé une seule fois.
+ * Le texte source contient des champs {@code {{nom}}} et des sections conditionnelles
+ * {@code {{#cond}}...{{/cond}}} (ou {@code {{^cond}}...{{/cond}}} pour la négation).
+ * La compilation le découpe en segments littéraux et en écrivains de champs résolus
+ * d'avance : le rendu n'est plus qu'une suite d'{@code append} dans un tampon réutilisable.
+ *
+ * @param <C> contexte de rendu (ticket, destinataire...)
+ */
+public final class NotificationTemplate<C> {
+
+    /** Écrit la valeur d'un champ directement dans le tampon. */
+    @FunctionalInterface
+    public interface FieldWriter<C> {
+        void write(C context, StringBuilder out);
+    }
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final FieldWriter<C>[] segments;
+    private final int estimatedLength;
+
+    private NotificationTemplate(FieldWriter<C>[] segments, int estimatedLength) {
+        this.segments = segments;
+        this.estimatedLength = estimatedLength;
+    }
+
+    /**
+     * Compile un modèle.
+     *
+     * @throws IllegalArgumentException si un champ ou une condition est inconnu, ou une balise mal fermée
+     */
+    public static <C> NotificationTemplate<C> compile(String source,
+                                                      Map<String, FieldWriter<C>> fields,
+                                                      Map<String, Predicate<C>> conditions) {
+        return compile(source, 0, source.length(), fields, conditions);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <C> NotificationTemplate<C> compile(String source, int start, int end,
+                                                       Map<String, FieldWriter<C>> fields,
+                                                       Map<String, Predicate<C>> conditions) {
+        List<FieldWriter<C>> segments = new ArrayList<>();
+        int estimatedLength = 0;
+        int position = start;
+        while (position < end) {
+            int open = source.indexOf(OPEN, position);
+            if (open < 0 || open >= end) {
+                open = end;
+            }
+            if (open > position) {
+                String literal = source.substring(position, open);
+                segments.add((context, out) -> out.append(literal));
+                estimatedLength += literal.length();
+            }
+            if (open == end) {
+                break;
+            }
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0 || close >= end) {
+                throw new IllegalArgumentException("Balise non fermee a la position " + open);
+            }
+            String tag = source.substring(open + OPEN.length(), close).trim();
+            position = close + CLOSE.length();
+
+            char kind = tag.isEmpty() ? ' ' : tag.charAt(0);
+            if (kind == '#' || kind == '^') {
+                String name = tag.substring(1).trim();
+                Predicate<C> condition = conditions.get(name);
+                if (condition == null) {
+                    throw new IllegalArgumentException("Condition inconnue dans le modele: " + name);
+                }
+                String endTag = OPEN + "/" + name + CLOSE;
+                int sectionEnd = source.indexOf(endTag, position);
+                if (sectionEnd < 0 || sectionEnd >= end) {
+                    throw new IllegalArgumentException("Section non fermee: " + name);
+                }
+                NotificationTemplate<C> inner = compile(source, position, sectionEnd, fields, conditions);
+                boolean expected = kind == '#';
+                segments.add((context, out) -> {
+                    if (condition.test(context) == expected) {
+                        inner.render(context, out);
+                    }
+                });
+                estimatedLength += inner.estimatedLength;
+                position = sectionEnd + endTag.length();
+            } else {
+                FieldWriter<C> field = fields.get(tag);
+                if (field == null) {
+                    throw new IllegalArgumentException("Champ inconnu dans le modele: " + tag);
+                }
+                segments.add(field);
+                estimatedLength += 16;
+            }
+        }
+        return new NotificationTemplate<>((FieldWriter<C>[]) segments.toArray(new FieldWriter<?>[0]), estimatedLength);
+    }
+
+    /** Rend le modèle à la suite du contenu de {@code out}. */
+    public void render(C context, StringBuilder out) {
+        out.ensureCapacity(out.length() + estimatedLength);
+        for (FieldWriter<C> segment : segments) {
+            segment.write(context, out);
+        }
+    }
+
+    public String render(C context) {
+        StringBuilder out = new StringBuilder(estimatedLength);
+        render(context, out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package com.crm.supportclient.notification;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Variantes d'un modèle par langue, compilées une fois.
+ * Recherche : locale exacte, puis langue seule, puis locale par défaut.
+ */
+public final class TemplateCatalog<C> {
+
+    private final Map<Locale, NotificationTemplate<C>> templates = new HashMap<>();
+    private final Map<String, NotificationTemplate<C>> byLanguage = new HashMap<>();
+    private final Map<String, NotificationTemplate.FieldWriter<C>> fields;
+    private final Map<String, Predicate<C>> conditions;
+    private final Locale defaultLocale;
+
+    public TemplateCatalog(Map<String, NotificationTemplate.FieldWriter<C>> fields,
+                           Map<String, Predicate<C>> conditions,
+                           Locale defaultLocale) {
+        this.fields = Map.copyOf(fields);
+        this.conditions = Map.copyOf(conditions);
+        this.defaultLocale = defaultLocale;
+    }
+
+    /** Compile et enregistre la variante d'une langue. */
+    public TemplateCatalog<C> register(Locale locale, String source) {
+        NotificationTemplate<C> template = NotificationTemplate.compile(source, fields, conditions);
+        templates.put(locale, template);
+        byLanguage.putIfAbsent(locale.getLanguage(), template);
+        return this;
+    }
+
+    public NotificationTemplate<C> get(Locale locale) {
+        NotificationTemplate<C> template = templates.get(locale);
+        if (template == null && locale != null) {
+            template = byLanguage.get(locale.getLanguage());
+        }
+        if (template == null) {
+            template = templates.get(defaultLocale);
+        }
+        if (template == null) {
+            throw new IllegalStateException("Aucun modele pour " + locale + " ni pour " + defaultLocale);
+        }
+        return template;
+    }
+}
@@ -0,0 +1,329 @@
+package com.crm.supportclient.observer;
+
+import com.crm.supportclient.model.Ticket;
+import com.crm.supportclient.model.TransitionTicket;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dispatcher asynchrone des notifications.
+ * Chaque observateur dispose de sa propre file bornée, vidée par un pool de workers
+ * partagé : un observateur lent (SMTP...) ne retarde que ses propres notifications.
+ * L'ordre des notifications est conservé par observateur. Une file pleine est traitée selon
+ * la {@link OverflowPolicy} ; seule {@link OverflowPolicy#BLOCK} fait attendre le thread qui publie.
+ */
+public class AsyncNotificationDispatcher implements NotificationDispatcher, AutoCloseable {
+
+    /** Comportement quand la file d'un observateur est pleine. */
+    public enum OverflowPolicy {
+        /**
+         * Le thread qui publie attend une place au plus le délai configuré (backpressure),
+         * puis la notification est abandonnée. Via {@link #offer}, qui ne doit jamais attendre,
+         * la notification est abandonnée tout de suite.
+         */
+        BLOCK,
+        /** Abandonne la nouvelle notification. */
+        DROP_NEWEST,
+        /** Abandonne la plus ancienne notification en attente. */
+        DROP_OLDEST,
+        /** Livre la notification sur le thread appelant (backpressure, ordre non garanti). */
+        CALLER_RUNS
+    }
+
+    /** Métriques instantanées du dispatcher. */
+    public record Metrics(
+        long submitted,
+        long delivered,
+        long dropped,
+        long failed,
+        int queueDepth,
+        int observers,
+        long oldestPendingMillis,
+        long lastLagMillis,
+        long maxLagMillis
+    ) {
+    }
+
+    /** Nombre max de notifications livrées par un worker avant de céder la main. */
+    private static final int BATCH_SIZE = 32;
+
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final ExecutorService workers;
+    private final ConcurrentMap<TicketObserver, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicLong lastLagNanos = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+
+    public AsyncNotificationDispatcher(int workerCount, boolean virtualThreads, int queueCapacity,
+                                       OverflowPolicy overflowPolicy, long blockTimeoutMillis) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("workerCount doit etre >= 1: " + workerCount);
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity doit etre >= 1: " + queueCapacity);
+        }
+        ThreadFactory factory = virtualThreads
+            ? Thread.ofVirtual().name("notify-", 0).factory()
+            : Thread.ofPlatform().name("notify-", 0).daemon(true).factory();
+        this.workers = Executors.newFixedThreadPool(workerCount, factory);
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+    }
+
+    @Override
+    public void dispatch(Ticket ticket, List<TransitionTicket> transitions, List<TicketObserver> observers) {
+        for (TicketObserver observer : observers) {
+            submit(observer, ticket, transitions, overflowPolicy);
+        }
+    }
+
+    /** Comme {@link #dispatch}, mais BLOCK et CALLER_RUNS perdent la notification au lieu d'attendre ou de la livrer sur place. */
+    @Override
+    public void offer(Ticket ticket, List<TransitionTicket> transitions, List<TicketObserver> observers) {
+        OverflowPolicy policy = overflowPolicy == OverflowPolicy.BLOCK || overflowPolicy == OverflowPolicy.CALLER_RUNS
+            ? OverflowPolicy.DROP_NEWEST : overflowPolicy;
+        for (TicketObserver observer : observers) {
+            submit(observer, ticket, transitions, policy);
+        }
+    }
+
+    /** Une file retirée entre-temps est écartée de la map, et la suivante prend le relais. */
+    private void submit(TicketObserver observer, Ticket ticket, List<TransitionTicket> transitions,
+                        OverflowPolicy policy) {
+        Envelope envelope = new Envelope(ticket, transitions, System.nanoTime());
+        submitted.increment();
+        Lane lane;
+        while (!(lane = lanes.computeIfAbsent(observer, Lane::new)).submit(envelope, policy)) {
+            lanes.remove(observer, lane);
+        }
+    }
+
+    /**
+     * L'observateur a été retiré d'un ticket ou d'un sujet, mais il peut rester attaché ailleurs :
+     * sa file n'est retirée qu'une fois vide, sans worker en cours ni publication en vol. Une file
+     * n'est donc jamais remplacée tant qu'elle livre encore, et l'ordre par observateur tient.
+     * Une notification ultérieure pour lui recrée une file.
+     */
+    @Override
+    public void forget(TicketObserver observer) {
+        Lane lane = lanes.get(observer);
+        if (lane != null) {
+            lane.forgotten = true;
+            lane.tryRetire();
+        }
+    }
+
+    /** Nombre total de notifications en attente dans les files. */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Lane lane : lanes.values()) {
+            depth += lane.queue.size();
+        }
+        return depth;
+    }
+
+    public Metrics getMetrics() {
+        long now = System.nanoTime();
+        long oldest = 0;
+        for (Lane lane : lanes.values()) {
+            Envelope head = lane.queue.peek();
+            if (head != null) {
+                oldest = Math.max(oldest, now - head.enqueuedAt());
+            }
+        }
+        return new Metrics(
+            submitted.sum(),
+            delivered.sum(),
+            dropped.sum(),
+            failed.sum(),
+            getQueueDepth(),
+            lanes.size(),
+            TimeUnit.NANOSECONDS.toMillis(oldest),
+            TimeUnit.NANOSECONDS.toMillis(lastLagNanos.get()),
+            TimeUnit.NANOSECONDS.toMillis(maxLagNanos.get())
+        );
+    }
+
+    /** Arrête les workers après avoir laissé les files se vider. */
+    @Override
+    public void close() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Envelope(Ticket ticket, List<TransitionTicket> transitions, long enqueuedAt) {
+    }
+
+    /** File d'un observateur ; au plus un worker la vide à un instant donné. */
+    private final class Lane implements Runnable {
+
+        /** Valeur de {@link #publishers} d'une file retirée : plus rien n'y entre. */
+        private static final int RETIREE = -1;
+
+        private final TicketObserver observer;
+        private final BlockingQueue<Envelope> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        /** Publications en cours dans cette file, ou {@link #RETIREE}. */
+        private final AtomicInteger publishers = new AtomicInteger();
+        /** Observateur oublié : la file sera retirée dès qu'elle sera inactive. */
+        private volatile boolean forgotten;
+
+        Lane(TicketObserver observer) {
+            this.observer = observer;
+            this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        }
+
+        /** Retourne false si la file est retirée : la notification doit aller dans une nouvelle. */
+        boolean submit(Envelope envelope, OverflowPolicy policy) {
+            int count;
+            do {
+                count = publishers.get();
+                if (count == RETIREE) {
+                    return false;
+                }
+            } while (!publishers.compareAndSet(count, count + 1));
+            try {
+                boolean queued = queue.offer(envelope);
+                if (queued || handleOverflow(envelope, policy)) {
+                    schedule();
+                }
+            } finally {
+                publishers.decrementAndGet();
+            }
+            if (forgotten) {
+                tryRetire();
+            }
+            return true;
+        }
+
+        /**
+         * Retire la file de la map si l'observateur a été oublié et qu'elle est inactive : vide,
+         * sans worker planifié ni publication en vol. Une publication qui la trouve retirée
+         * repart sur une nouvelle file, qui ne peut donc jamais livrer en même temps qu'elle.
+         */
+        void tryRetire() {
+            if (!forgotten || scheduled.get() || !queue.isEmpty()
+                    || !publishers.compareAndSet(0, RETIREE)) {
+                return;
+            }
+            // Une publication a pu se terminer entre les tests : elle a planifié un worker
+            if (scheduled.get() || !queue.isEmpty()) {
+                publishers.set(0);
+                return;
+            }
+            lanes.remove(observer, this);
+        }
+
+        /** Retourne true si la notification a finalement été mise en file. */
+        private boolean handleOverflow(Envelope envelope, OverflowPolicy policy) {
+            switch (policy) {
+                case BLOCK -> {
+                    try {
+                        if (queue.offer(envelope, blockTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                            return true;
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    dropped.increment();
+                    return false;
+                }
+                case DROP_NEWEST -> {
+                    dropped.increment();
+                    return false;
+                }
+                case DROP_OLDEST -> {
+                    while (!queue.offer(envelope)) {
+                        if (queue.poll() != null) {
+                            dropped.increment();
+                        }
+                    }
+                    return true;
+                }
+                case CALLER_RUNS -> {
+                    deliver(envelope);
+                    return false;
+                }
+                default -> throw new IllegalStateException("Politique inconnue: " + policy);
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    workers.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // Dispatcher arrêté : les notifications restantes sont livrées sur place
+                    do {
+                        Envelope envelope;
+                        while ((envelope = queue.poll()) != null) {
+                            deliver(envelope);
+                        }
+                        scheduled.set(false);
+                    } while (!queue.isEmpty() && scheduled.compareAndSet(false, true));
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    Envelope envelope = queue.poll();
+                    if (envelope == null) {
+                        break;
+                    }
+                    deliver(envelope);
+                }
+            } finally {
+                scheduled.set(false);
+                if (!queue.isEmpty()) {
+                    schedule();
+                } else {
+                    tryRetire();
+                }
+            }
+        }
+
+        private void deliver(Envelope envelope) {
+            long lag = System.nanoTime() - envelope.enqueuedAt();
+            lastLagNanos.set(lag);
+            maxLagNanos.accumulateAndGet(lag, Math::max);
+            try {
+                observer.update(envelope.ticket(), envelope.transitions());
+                delivered.increment();
+            } catch (RuntimeException e) {
+                failed.increment();
+                System.err.println("[NOTIFY] Echec de notification du ticket #"
+                    + envelope.ticket().getId() + ": " + e.getMessage());
+            }
+        }
+    }
+}
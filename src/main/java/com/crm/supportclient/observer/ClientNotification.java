@@ -1,45 +1,102 @@
 package com.crm.supportclient.observer;
 
 import com.crm.supportclient.model.Ticket;
+import com.crm.supportclient.model.TicketSnapshot;
+import com.crm.supportclient.model.TransitionTicket;
+import com.crm.supportclient.notification.NotificationSink;
+import com.crm.supportclient.notification.NotificationTemplate.FieldWriter;
+import com.crm.supportclient.notification.TemplateCatalog;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
 
 /** Observateur - Notifie le client par email. */
 public class ClientNotification implements TicketObserver {
-    
+
+    private record Contexte(ClientNotification destinataire, Ticket ticket, TicketSnapshot etat,
+                            List<TransitionTicket> transitions) {
+    }
+
+    private static final TemplateCatalog<Contexte> TEMPLATES = new TemplateCatalog<>(
+        Map.<String, FieldWriter<Contexte>>of(
+            "email", (c, out) -> out.append(c.destinataire().clientEmail),
+            "clientId", (c, out) -> out.append(c.destinataire().clientId),
+            "ticketId", (c, out) -> out.append(c.ticket().getId()),
+            "titre", (c, out) -> out.append(c.ticket().getTitre()),
+            "statut", (c, out) -> out.append(c.etat().statut().getLibelle()),
+            "dateCreation", (c, out) -> out.append(c.ticket().getDateCreation()),
+            "solution", (c, out) -> out.append(c.etat().solution()),
+            "historique", (c, out) -> TransitionTicket.appendAll(c.transitions(), out)
+        ),
+        Map.<String, Predicate<Contexte>>of(
+            "solution", c -> c.etat().solution() != null,
+            "historique", c -> c.transitions().size() > 1
+        ),
+        Locale.FRENCH
+    )
+        .register(Locale.FRENCH, """
+            ===========================================================
+            NOTIFICATION CLIENT
+            ===========================================================
+            Destinataire: {{email}} (Client #{{clientId}})
+            
+            Votre ticket #{{ticketId}} a ete mis a jour!
+            
+            Titre: {{titre}}
+            Nouveau statut: {{statut}}
+            Date de creation: {{dateCreation}}
+            {{#solution}}Solution: {{solution}}{{/solution}}
+            {{#historique}}Historique: {{historique}}{{/historique}}
+            ===========================================================
+            """)
+        .register(Locale.ENGLISH, """
+            ===========================================================
+            CUSTOMER NOTIFICATION
+            ===========================================================
+            To: {{email}} (Customer #{{clientId}})
+            
+            Your ticket #{{ticketId}} has been updated!
+            
+            Title: {{titre}}
+            New status: {{statut}}
+            Created on: {{dateCreation}}
+            {{#solution}}Solution: {{solution}}{{/solution}}
+            {{#historique}}History: {{historique}}{{/historique}}
+            ===========================================================
+            """);
+
+    /** Tampon de rendu réutilisé par thread. */
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(512));
+
     private final int clientId;
     private final String clientEmail;
+    private final Locale locale;
+    private final NotificationSink sink;
 
     public ClientNotification(int clientId, String clientEmail) {
+        this(clientId, clientEmail, Locale.FRENCH, NotificationSink.CONSOLE);
+    }
+
+    public ClientNotification(int clientId, String clientEmail, Locale locale, NotificationSink sink) {
         this.clientId = clientId;
         this.clientEmail = clientEmail;
+        this.locale = locale;
+        this.sink = sink;
     }
 
     @Override
     public void update(Ticket ticket) {
-        String message = String.format(
-            """
-            ===========================================================
-            NOTIFICATION CLIENT
-            ===========================================================
-            Destinataire: %s (Client #%d)
-            
-            Votre ticket #%d a ete mis a jour!
-            
-            Titre: %s
-            Nouveau statut: %s
-            Date de creation: %s
-            %s
-            ===========================================================
-            """,
-            clientEmail,
-            clientId,
-            ticket.getId(),
-            ticket.getTitre(),
-            ticket.getStatut().getLibelle(),
-            ticket.getDateCreation(),
-            ticket.getSolution() != null ? "Solution: " + ticket.getSolution() : ""
-        );
-        
-        System.out.println(message);
+        update(ticket, List.of());
+    }
+
+    @Override
+    public void update(Ticket ticket, List<TransitionTicket> transitions) {
+        StringBuilder message = BUFFER.get();
+        message.setLength(0);
+        TEMPLATES.get(locale).render(new Contexte(this, ticket, ticket.getSnapshot(), transitions), message);
+        sink.send(clientEmail, message);
         // En production: envoi réel d'email via service de messagerie
     }
 
@@ -50,4 +107,8 @@ public class ClientNotification implements TicketObserver {
     public String getClientEmail() {
         return clientEmail;
     }
+
+    public Locale getLocale() {
+        return locale;
+    }
 }
@@ -0,0 +1,119 @@
+package com.crm.supportclient.observer;
+
+import com.crm.supportclient.model.Ticket;
+import com.crm.supportclient.model.TransitionTicket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Étage de regroupement placé devant un autre dispatcher.
+ * Les notifications d'un même ticket reçues pendant la fenêtre sont fusionnées en une seule,
+ * livrée avec l'état final du ticket et la liste des transitions intermédiaires.
+ * La fenêtre démarre à la première notification : le délai ajouté est donc borné.
+ * La minuterie remet chaque regroupement par {@link NotificationDispatcher#offer}, sans
+ * jamais attendre un observateur : un observateur lent ne retarde pas les autres tickets.
+ */
+public class CoalescingNotificationDispatcher implements NotificationDispatcher, AutoCloseable {
+
+    private final NotificationDispatcher delegate;
+    private final long windowMillis;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentMap<Integer, Pending> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public CoalescingNotificationDispatcher(NotificationDispatcher delegate, long windowMillis) {
+        if (windowMillis < 1) {
+            throw new IllegalArgumentException("windowMillis doit etre >= 1: " + windowMillis);
+        }
+        this.delegate = delegate;
+        this.windowMillis = windowMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("notify-coalesce").daemon(true).factory());
+    }
+
+    @Override
+    public void dispatch(Ticket ticket, List<TransitionTicket> transitions, List<TicketObserver> observers) {
+        received.increment();
+        int ticketId = ticket.getId();
+        Pending created = new Pending(ticket);
+        Pending entry = pending.compute(ticketId, (id, existing) -> {
+            Pending target = existing != null ? existing : created;
+            if (existing != null) {
+                coalesced.increment();
+            }
+            target.transitions.addAll(transitions);
+            target.observers = observers;
+            return target;
+        });
+        if (entry == created) {
+            try {
+                scheduler.schedule(() -> flush(ticketId), windowMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                flush(ticketId);
+            }
+        }
+    }
+
+    private void flush(int ticketId) {
+        Pending entry = pending.remove(ticketId);
+        if (entry != null) {
+            flushed.increment();
+            delegate.offer(entry.ticket, List.copyOf(entry.transitions), entry.observers);
+        }
+    }
+
+    @Override
+    public void forget(TicketObserver observer) {
+        delegate.forget(observer);
+    }
+
+    /** Notifications reçues. */
+    public long getReceived() {
+        return received.sum();
+    }
+
+    /** Notifications effectivement transmises après regroupement. */
+    public long getFlushed() {
+        return flushed.sum();
+    }
+
+    /** Notifications absorbées par le regroupement. */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    /** Livre immédiatement les notifications en attente puis arrête le planificateur. */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        for (Integer ticketId : List.copyOf(pending.keySet())) {
+            flush(ticketId);
+        }
+    }
+
+    /** Notifications en attente pour un ticket (modifiées sous le verrou de la map). */
+    private static final class Pending {
+        private final Ticket ticket;
+        private final List<TransitionTicket> transitions = new ArrayList<>();
+        private List<TicketObserver> observers;
+
+        Pending(Ticket ticket) {
+            this.ticket = ticket;
+        }
+    }
+}
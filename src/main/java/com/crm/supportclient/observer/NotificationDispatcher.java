@@ -0,0 +1,36 @@
+package com.crm.supportclient.observer;
+
+import com.crm.supportclient.model.Ticket;
+import com.crm.supportclient.model.TransitionTicket;
+
+import java.util.List;
+
+/** Stratégie de livraison des notifications d'un ticket à ses observateurs. */
+public interface NotificationDispatcher {
+
+    /** Livraison synchrone, sur le thread appelant (comportement historique). */
+    NotificationDispatcher SYNCHRONE = (ticket, transitions, observers) -> {
+        for (TicketObserver observer : observers) {
+            observer.update(ticket, transitions);
+        }
+    };
+
+    void dispatch(Ticket ticket, List<TransitionTicket> transitions, List<TicketObserver> observers);
+
+    /**
+     * Remise depuis un thread qui ne doit jamais attendre un observateur (minuterie du
+     * regroupement) : une file pleine fait perdre la notification, comptée, au lieu de bloquer
+     * ou de livrer sur place. Par défaut, identique à {@link #dispatch} (livraison synchrone).
+     */
+    default void offer(Ticket ticket, List<TransitionTicket> transitions, List<TicketObserver> observers) {
+        dispatch(ticket, transitions, observers);
+    }
+
+    /**
+     * L'observateur a été retiré (désabonnement, détachement) : libère ce que le dispatcher
+     * garde pour lui. Les notifications déjà acceptées restent livrées. L'observateur peut
+     * encore être attaché à d'autres tickets et recevoir d'autres notifications.
+     */
+    default void forget(TicketObserver observer) {
+    }
+}
@@ -0,0 +1,140 @@
+package com.crm.supportclient.observer;
+
+import com.crm.supportclient.model.Ticket;
+import com.crm.supportclient.model.TransitionTicket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registre central des abonnements.
+ * Un observateur unique par client ou par agent s'abonne à des sujets
+ * (tickets d'un client, assignations d'un agent, priorité, tous les tickets) ;
+ * à chaque notification, les destinataires sont retrouvés par simple recherche
+ * au lieu d'être dupliqués dans chaque ticket.
+ * Les observateurs attachés directement au ticket restent notifiés en plus.
+ */
+public class SubscriptionRegistry implements NotificationDispatcher {
+
+    /** Sujet d'abonnement. */
+    public record Topic(Kind kind, String key) {
+
+        public enum Kind {
+            CLIENT,
+            AGENT,
+            PRIORITE,
+            TOUS
+        }
+
+        public static Topic client(int clientId) {
+            return new Topic(Kind.CLIENT, String.valueOf(clientId));
+        }
+
+        public static Topic agent(UUID supportId) {
+            return new Topic(Kind.AGENT, supportId.toString());
+        }
+
+        public static Topic priorite(String priorite) {
+            return new Topic(Kind.PRIORITE, priorite);
+        }
+
+        public static Topic tous() {
+            return new Topic(Kind.TOUS, "*");
+        }
+    }
+
+    private final NotificationDispatcher delegate;
+    private final ConcurrentMap<Topic, CopyOnWriteArrayList<TicketObserver>> subscriptions = new ConcurrentHashMap<>();
+
+    public SubscriptionRegistry(NotificationDispatcher delegate) {
+        this.delegate = delegate;
+    }
+
+    public void subscribe(Topic topic, TicketObserver observer) {
+        subscriptions.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).addIfAbsent(observer);
+    }
+
+    /** Désabonne ; un observateur qui n'a plus aucun sujet est oublié du dispatcher. */
+    public void unsubscribe(Topic topic, TicketObserver observer) {
+        List<TicketObserver> observers = subscriptions.get(topic);
+        if (observers != null && observers.remove(observer) && !isSubscribed(observer)) {
+            delegate.forget(observer);
+        }
+    }
+
+    private boolean isSubscribed(TicketObserver observer) {
+        for (List<TicketObserver> observers : subscriptions.values()) {
+            if (observers.contains(observer)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Observateurs abonnés à un sujet (copie en lecture seule). */
+    public List<TicketObserver> getSubscribers(Topic topic) {
+        List<TicketObserver> subscribers = subscriptions.get(topic);
+        return subscribers == null ? List.of() : List.copyOf(subscribers);
+    }
+
+    /** Destinataires d'une notification : abonnés des sujets du ticket + observateurs du ticket. */
+    public List<TicketObserver> resolve(Ticket ticket, List<TicketObserver> attached) {
+        List<TicketObserver> recipients = new ArrayList<>(attached);
+        if (ticket.getClientId() != 0) {
+            addAll(recipients, Topic.client(ticket.getClientId()));
+        }
+        UUID agentId = ticket.getAssignedSupportId();
+        if (agentId != null) {
+            addAll(recipients, Topic.agent(agentId));
+        }
+        if (ticket.getPriorite() != null) {
+            addAll(recipients, Topic.priorite(ticket.getPriorite()));
+        }
+        addAll(recipients, Topic.tous());
+        return recipients;
+    }
+
+    @Override
+    public void dispatch(Ticket ticket, List<TransitionTicket> transitions, List<TicketObserver> observers) {
+        delegate.dispatch(ticket, transitions, resolve(ticket, observers));
+    }
+
+    @Override
+    public void offer(Ticket ticket, List<TransitionTicket> transitions, List<TicketObserver> observers) {
+        delegate.offer(ticket, transitions, resolve(ticket, observers));
+    }
+
+    /** Observateur détaché d'un ticket : oublié du dispatcher s'il n'est abonné à aucun sujet. */
+    @Override
+    public void forget(TicketObserver observer) {
+        if (!isSubscribed(observer)) {
+            delegate.forget(observer);
+        }
+    }
+
+    private void addAll(List<TicketObserver> recipients, Topic topic) {
+        List<TicketObserver> subscribers = subscriptions.get(topic);
+        if (subscribers == null) {
+            return;
+        }
+        for (TicketObserver observer : subscribers) {
+            // Un même observateur peut être abonné à plusieurs sujets : une seule livraison
+            if (!containsIdentity(recipients, observer)) {
+                recipients.add(observer);
+            }
+        }
+    }
+
+    private static boolean containsIdentity(List<TicketObserver> observers, TicketObserver observer) {
+        for (TicketObserver candidate : observers) {
+            if (candidate == observer) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
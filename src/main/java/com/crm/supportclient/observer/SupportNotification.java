@@ -1,55 +1,115 @@
 package com.crm.supportclient.observer;
 
 import com.crm.supportclient.model.Ticket;
+import com.crm.supportclient.model.TicketSnapshot;
+import com.crm.supportclient.model.TransitionTicket;
+import com.crm.supportclient.notification.NotificationSink;
+import com.crm.supportclient.notification.NotificationTemplate.FieldWriter;
+import com.crm.supportclient.notification.TemplateCatalog;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Predicate;
 
 /** Observateur - Notifie l'agent de support. */
 public class SupportNotification implements TicketObserver {
-    
+
+    private record Contexte(SupportNotification destinataire, Ticket ticket, TicketSnapshot etat,
+                            List<TransitionTicket> transitions) {
+    }
+
+    private static final TemplateCatalog<Contexte> TEMPLATES = new TemplateCatalog<>(
+        Map.<String, FieldWriter<Contexte>>ofEntries(
+            Map.entry("agent", (c, out) -> out.append(c.destinataire().supportName)),
+            Map.entry("email", (c, out) -> out.append(c.destinataire().supportEmail)),
+            Map.entry("agentId", (c, out) -> out.append(c.destinataire().supportId)),
+            Map.entry("ticketId", (c, out) -> out.append(c.ticket().getId())),
+            Map.entry("titre", (c, out) -> out.append(c.ticket().getTitre())),
+            Map.entry("description", (c, out) -> out.append(c.ticket().getDescription())),
+            Map.entry("priorite", (c, out) -> out.append(c.ticket().getPriorite())),
+            Map.entry("statut", (c, out) -> out.append(c.etat().statut().getLibelle())),
+            Map.entry("dateCreation", (c, out) -> out.append(c.ticket().getDateCreation())),
+            Map.entry("assigneA", (c, out) -> out.append(c.etat().assignedSupportId())),
+            Map.entry("historique", (c, out) -> TransitionTicket.appendAll(c.transitions(), out))
+        ),
+        Map.<String, Predicate<Contexte>>of(
+            "assigne", c -> c.etat().assignedSupportId() != null,
+            "historique", c -> c.transitions().size() > 1
+        ),
+        Locale.FRENCH
+    )
+        .register(Locale.FRENCH, """
+            ===========================================================
+            NOTIFICATION SUPPORT
+            ===========================================================
+            Agent: {{agent}} <{{email}}>
+            ID Agent: {{agentId}}
+            
+            Mise a jour du ticket #{{ticketId}}
+            
+            Titre: {{titre}}
+            Description: {{description}}
+            Priorite: {{priorite}}
+            Statut actuel: {{statut}}
+            Cree le: {{dateCreation}}
+            {{#assigne}}Assigne a: {{assigneA}}{{/assigne}}{{^assigne}}Non assigne{{/assigne}}
+            {{#historique}}Historique: {{historique}}{{/historique}}
+            ===========================================================
+            """)
+        .register(Locale.ENGLISH, """
+            ===========================================================
+            SUPPORT NOTIFICATION
+            ===========================================================
+            Agent: {{agent}} <{{email}}>
+            Agent ID: {{agentId}}
+            
+            Ticket #{{ticketId}} updated
+            
+            Title: {{titre}}
+            Description: {{description}}
+            Priority: {{priorite}}
+            Current status: {{statut}}
+            Created on: {{dateCreation}}
+            {{#assigne}}Assigned to: {{assigneA}}{{/assigne}}{{^assigne}}Unassigned{{/assigne}}
+            {{#historique}}History: {{historique}}{{/historique}}
+            ===========================================================
+            """);
+
+    /** Tampon de rendu réutilisé par thread. */
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(512));
+
     private final UUID supportId;
     private final String supportName;
     private final String supportEmail;
+    private final Locale locale;
+    private final NotificationSink sink;
 
     public SupportNotification(UUID supportId, String supportName, String supportEmail) {
+        this(supportId, supportName, supportEmail, Locale.FRENCH, NotificationSink.CONSOLE);
+    }
+
+    public SupportNotification(UUID supportId, String supportName, String supportEmail,
+                               Locale locale, NotificationSink sink) {
         this.supportId = supportId;
         this.supportName = supportName;
         this.supportEmail = supportEmail;
+        this.locale = locale;
+        this.sink = sink;
     }
 
     @Override
     public void update(Ticket ticket) {
-        String message = String.format(
-            """
-            ===========================================================
-            NOTIFICATION SUPPORT
-            ===========================================================
-            Agent: %s <%s>
-            ID Agent: %s
-            
-            Mise a jour du ticket #%d
-            
-            Titre: %s
-            Description: %s
-            Priorite: %s
-            Statut actuel: %s
-            Cree le: %s
-            %s
-            ===========================================================
-            """,
-            supportName,
-            supportEmail,
-            supportId,
-            ticket.getId(),
-            ticket.getTitre(),
-            ticket.getDescription(),
-            ticket.getPriorite(),
-            ticket.getStatut().getLibelle(),
-            ticket.getDateCreation(),
-            ticket.getAssignedSupportId() != null ? 
-                "Assigne a: " + ticket.getAssignedSupportId() : "Non assigne"
-        );
-        
-        System.out.println(message);
+        update(ticket, List.of());
+    }
+
+    @Override
+    public void update(Ticket ticket, List<TransitionTicket> transitions) {
+        StringBuilder message = BUFFER.get();
+        message.setLength(0);
+        TEMPLATES.get(locale).render(new Contexte(this, ticket, ticket.getSnapshot(), transitions), message);
+        sink.send(supportEmail, message);
         // En production: envoi réel de notification via système interne
     }
 
@@ -64,4 +124,8 @@ public class SupportNotification implements TicketObserver {
     public String getSupportEmail() {
         return supportEmail;
     }
+
+    public Locale getLocale() {
+        return locale;
+    }
 }
@@ -1,8 +1,19 @@
 package com.crm.supportclient.observer;
 
 import com.crm.supportclient.model.Ticket;
+import com.crm.supportclient.model.TransitionTicket;
+
+import java.util.List;
 
 /** Interface Observer pour les notifications de ticket. */
 public interface TicketObserver {
     void update(Ticket ticket);
+
+    /**
+     * Notification portant les transitions survenues depuis la précédente
+     * (plusieurs si elles ont été regroupées). Par défaut, délègue à {@link #update(Ticket)}.
+     */
+    default void update(Ticket ticket, List<TransitionTicket> transitions) {
+        update(ticket);
+    }
 }
@@ -0,0 +1,86 @@
+package com.crm.supportclient.repository;
+
+import com.crm.supportclient.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Dépôt en mémoire - ConcurrentHashMap + verrous striés par ticket.
+ * Un nombre fixe de verrous (puissance de 2) est partagé entre tous les tickets :
+ * pas de verrou global, et pas d'allocation d'un verrou par ticket.
+ */
+public class InMemoryTicketRepository implements TicketRepository {
+
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final ConcurrentMap<Integer, Ticket> tickets;
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public InMemoryTicketRepository() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public InMemoryTicketRepository(int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("stripeCount doit etre >= 1: " + stripeCount);
+        }
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        this.tickets = new ConcurrentHashMap<>();
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    @Override
+    public void save(Ticket ticket) {
+        tickets.put(ticket.getId(), ticket);
+    }
+
+    @Override
+    public Ticket delete(int ticketId) {
+        return tickets.remove(ticketId);
+    }
+
+    @Override
+    public Ticket findById(int ticketId) {
+        return tickets.get(ticketId);
+    }
+
+    @Override
+    public List<Ticket> findAll() {
+        return new ArrayList<>(tickets.values());
+    }
+
+    @Override
+    public int count() {
+        return tickets.size();
+    }
+
+    @Override
+    public <T> T withLock(int ticketId, Supplier<T> action) {
+        ReentrantLock lock = stripeFor(ticketId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripeFor(int ticketId) {
+        // Mélange des bits pour que des ids consécutifs tombent sur des verrous différents
+        int h = ticketId * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+}
@@ -0,0 +1,38 @@
+package com.crm.supportclient.repository;
+
+import com.crm.supportclient.model.Ticket;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/** Dépôt de tickets partagé entre le portail client et le serveur web. */
+public interface TicketRepository {
+
+    /** Enregistre (ou remplace) un ticket. */
+    void save(Ticket ticket);
+
+    /** Retire le ticket du dépôt ; renvoie le ticket retiré, ou {@code null} s'il n'existait pas. */
+    Ticket delete(int ticketId);
+
+    /** Retourne le ticket, ou {@code null} s'il n'existe pas. */
+    Ticket findById(int ticketId);
+
+    /** Copie instantanée de tous les tickets. */
+    List<Ticket> findAll();
+
+    int count();
+
+    /**
+     * Exécute une action en exclusion mutuelle sur un ticket donné.
+     * Les actions portant sur des tickets différents ne se bloquent pas entre elles
+     * (sauf collision de verrou).
+     */
+    <T> T withLock(int ticketId, Supplier<T> action);
+
+    default void withLock(int ticketId, Runnable action) {
+        withLock(ticketId, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
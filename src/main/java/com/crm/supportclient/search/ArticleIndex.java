@@ -0,0 +1,397 @@
+package com.crm.supportclient.search;
+
+import com.crm.supportclient.model.ArticleBaseConnaissance;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Index de la base de connaissances : articles par identifiant + index inversé
+ * sur titre et contenu, tenu à jour à chaque ajout, modification ou suppression.
+ * La complétion ne porte que sur les titres et leurs termes, jamais sur le contenu.
+ */
+public class ArticleIndex {
+
+    private final ConcurrentNavigableMap<Integer, ArticleBaseConnaissance> articles = new ConcurrentSkipListMap<>();
+    /** Un mot du titre pèse deux fois plus qu'un mot du contenu. */
+    private static final double POIDS_TITRE = 2.0;
+    private static final double POIDS_CONTENU = 1.0;
+    private static final int LONGUEUR_EXTRAIT = 160;
+    /** Nombre de complétions gardées en cache par noeud des tries. */
+    public static final int MAX_SUGGESTIONS = 10;
+    /** Composantes des vecteurs TF-IDF (termes hachés). */
+    private static final int DIMENSIONS_VECTEURS = 512;
+
+    /** Article trouvé, avec son score BM25 et un extrait surligné. */
+    public record SearchHit(ArticleBaseConnaissance article, double score, String snippet) {
+    }
+
+    /**
+     * Page de résultats et nombre total d'articles trouvés.
+     * {@code didYouMean} propose une orthographe corrigée de la requête (ou null) ;
+     * {@code corrected} indique que les résultats sont ceux de cette requête corrigée,
+     * la requête d'origine n'ayant rien trouvé.
+     */
+    public record SearchPage(int totalHits, List<SearchHit> hits, String didYouMean, boolean corrected) {
+    }
+
+    /**
+     * Articles pouvant répondre à un ticket en cours de saisie. {@code complete} est faux
+     * si le budget de temps a écourté le calcul.
+     */
+    public record TicketSuggestions(List<SearchHit> hits, boolean complete, long elapsedMicros) {
+    }
+
+    /** Article proche d'un autre, avec sa similarité cosinus (0..1). */
+    public record RelatedArticle(ArticleBaseConnaissance article, double similarity) {
+    }
+
+    /** Mot de la requête à remplacer par un terme de l'index. */
+    private record Correction(int start, int end, String term) {
+    }
+
+    private final InvertedIndex index;
+    private final Highlighter highlighter;
+    private final TfIdfVectors vectors;
+    private final PrefixTrie titleTrie;
+    private final PrefixTrie termTrie;
+    /**
+     * Titre indexé et popularité (recherches où il arrive en tête) par article, et nombre de
+     * titres contenant chaque terme ; gardés par {@code suggestionsLock}.
+     */
+    private final Map<Integer, String> indexedTitles = new HashMap<>();
+    private final Map<Integer, Long> popularity = new HashMap<>();
+    private final Map<String, Integer> titleTermCounts = new HashMap<>();
+    private final ReentrantLock suggestionsLock = new ReentrantLock();
+    /**
+     * Journal des recherches pas encore reporté dans les tries : compté sans verrou, puis
+     * appliqué par le thread qui obtient {@code suggestionsLock} sans attendre.
+     */
+    private final ConcurrentMap<String, LongAdder> pendingTermSearches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, LongAdder> pendingTitleHits = new ConcurrentHashMap<>();
+    private final AtomicBoolean searchesPending = new AtomicBoolean();
+    /** Incrémentée après chaque ajout, modification ou suppression. */
+    private final AtomicLong version = new AtomicLong();
+
+    public ArticleIndex() {
+        this(TextAnalyzer.FRANCAIS);
+    }
+
+    public ArticleIndex(TextAnalyzer analyzer) {
+        this.index = new InvertedIndex(analyzer, POIDS_TITRE, POIDS_CONTENU);
+        this.highlighter = new Highlighter(analyzer, LONGUEUR_EXTRAIT);
+        this.vectors = new TfIdfVectors(analyzer, VectorKernel.best(), DIMENSIONS_VECTEURS,
+            POIDS_TITRE, POIDS_CONTENU);
+        this.titleTrie = new PrefixTrie(analyzer, MAX_SUGGESTIONS);
+        this.termTrie = new PrefixTrie(analyzer, MAX_SUGGESTIONS);
+    }
+
+    /** Ajoute ou réindexe un article (après modification). */
+    public void put(ArticleBaseConnaissance article) {
+        articles.put(article.getId(), article);
+        index.index(article.getId(), article.getTitre(), article.getContenu());
+        vectors.put(article.getId(), article.getTitre(), article.getContenu());
+        updateSuggestions(article.getId(), article.getTitre());
+        version.incrementAndGet();
+    }
+
+    public boolean remove(int articleId) {
+        boolean removed = articles.remove(articleId) != null;
+        index.remove(articleId);
+        vectors.remove(articleId);
+        updateSuggestions(articleId, null);
+        version.incrementAndGet();
+        return removed;
+    }
+
+    public ArticleBaseConnaissance get(int articleId) {
+        return articles.get(articleId);
+    }
+
+    /** Articles par ordre d'identifiant (vue en lecture seule, sans copie). */
+    public Collection<ArticleBaseConnaissance> values() {
+        return Collections.unmodifiableCollection(articles.values());
+    }
+
+    public int size() {
+        return articles.size();
+    }
+
+    /** Version de la collection : change à chaque ajout, modification ou suppression d'article. */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Articles satisfaisant la requête (ET implicite, OR, "phrase"), par ordre d'identifiant.
+     * Si rien ne correspond, la requête corrigée (fautes de frappe) est essayée.
+     */
+    public List<ArticleBaseConnaissance> search(String query) {
+        int[] matches = index.match(query);
+        if (matches.length == 0) {
+            String corrected = didYouMean(query);
+            if (corrected != null) {
+                matches = index.match(corrected);
+            }
+        }
+        return resolve(matches);
+    }
+
+    /**
+     * Recherche classée par pertinence (BM25), paginée, avec extraits surlignés.
+     * Une requête sans résultat est relancée avec l'orthographe corrigée.
+     */
+    public SearchPage search(String query, int offset, int limit) {
+        SearchQuery parsed = SearchQuery.parse(query, index.getAnalyzer());
+        InvertedIndex.TopDocs top = index.search(parsed, offset, limit);
+        String didYouMean = didYouMean(query);
+        boolean corrected = false;
+        if (top.totalHits() == 0 && didYouMean != null) {
+            SearchQuery retry = SearchQuery.parse(didYouMean, index.getAnalyzer());
+            InvertedIndex.TopDocs retried = index.search(retry, offset, limit);
+            if (retried.totalHits() > 0) {
+                parsed = retry;
+                top = retried;
+                corrected = true;
+            } else {
+                didYouMean = null;
+            }
+        }
+        Set<String> terms = parsed.terms();
+        if (offset == 0 && top.totalHits() > 0) {
+            recordSearch(terms, top.docs().get(0).docId());
+        }
+        List<SearchHit> hits = new ArrayList<>(top.docs().size());
+        for (InvertedIndex.ScoredDoc doc : top.docs()) {
+            ArticleBaseConnaissance article = articles.get(doc.docId());
+            if (article != null) {
+                hits.add(new SearchHit(article, doc.score(), highlighter.snippet(article.getContenu(), terms)));
+            }
+        }
+        return new SearchPage(top.totalHits(), hits, didYouMean, corrected);
+    }
+
+    /**
+     * Requête où chaque mot absent de l'index est remplacé par le terme le plus proche
+     * (1 faute jusqu'à 5 lettres, 2 au-delà), ou null si aucun mot n'est à corriger.
+     */
+    public String didYouMean(String query) {
+        if (query == null) {
+            return null;
+        }
+        List<Correction> corrections = new ArrayList<>();
+        index.getAnalyzer().analyze(query, 0, (term, position, start, end) -> {
+            int maxDistance = maxDistance(term.length());
+            if (maxDistance == 0 || SearchQuery.isOperator(query.substring(start, end))
+                    || index.documentFrequency(term) > 0) {
+                return;
+            }
+            // À distance 2, la première lettre est supposée juste : le parcours reste court
+            List<InvertedIndex.FuzzyTerm> candidates = index.fuzzyTerms(term, maxDistance, maxDistance - 1, 1);
+            if (!candidates.isEmpty()) {
+                corrections.add(new Correction(start, end, candidates.get(0).term()));
+            }
+        });
+        if (corrections.isEmpty()) {
+            return null;
+        }
+        StringBuilder corrected = new StringBuilder(query);
+        for (int k = corrections.size() - 1; k >= 0; k--) {
+            Correction correction = corrections.get(k);
+            corrected.replace(correction.start(), correction.end(), correction.term());
+        }
+        return corrected.toString();
+    }
+
+    private static int maxDistance(int length) {
+        return length <= 2 ? 0 : length <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Articles répondant au texte d'un ticket : chaque terme du titre et de la description
+     * suffit (OU), le classement BM25 favorisant les articles qui en partagent le plus.
+     * Le calcul s'arrête à {@code budgetNanos} après l'appel, en gardant les termes les plus rares.
+     */
+    public TicketSuggestions suggestForTicket(String titre, String description, int limit, long budgetNanos) {
+        long start = System.nanoTime();
+        Set<String> terms = new LinkedHashSet<>();
+        TextAnalyzer analyzer = index.getAnalyzer();
+        analyzer.analyze(titre, 0, (term, position) -> terms.add(term));
+        analyzer.analyze(description, 0, (term, position) -> terms.add(term));
+        if (terms.isEmpty()) {
+            return new TicketSuggestions(List.of(), true, 0);
+        }
+
+        InvertedIndex.BudgetedTopDocs top = index.searchAny(terms, limit, start + budgetNanos);
+        List<SearchHit> hits = new ArrayList<>(top.docs().size());
+        for (InvertedIndex.ScoredDoc doc : top.docs()) {
+            ArticleBaseConnaissance article = articles.get(doc.docId());
+            if (article != null) {
+                hits.add(new SearchHit(article, doc.score(), highlighter.snippet(article.getContenu(), terms)));
+            }
+        }
+        return new TicketSuggestions(hits, top.complete(), (System.nanoTime() - start) / 1_000);
+    }
+
+    /** Articles les plus proches de l'article donné (cosinus des vecteurs TF-IDF). */
+    public List<RelatedArticle> related(int articleId, int limit) {
+        List<RelatedArticle> related = new ArrayList<>(limit);
+        for (InvertedIndex.ScoredDoc doc : vectors.similar(articleId, limit)) {
+            ArticleBaseConnaissance article = articles.get(doc.docId());
+            if (article != null) {
+                related.add(new RelatedArticle(article, doc.score()));
+            }
+        }
+        return related;
+    }
+
+    public TfIdfVectors getVectors() {
+        return vectors;
+    }
+
+    /**
+     * Complétions du préfixe parmi les titres et leurs termes, par popularité.
+     * Un titre vaut 1 + nombre de fois où il est arrivé en tête d'une recherche ;
+     * un terme vaut le nombre de titres qui le contiennent + nombre de recherches le citant.
+     * Seuls les titres fournissent des candidats : une recherche ne fait que pondérer.
+     */
+    public List<PrefixTrie.Suggestion> suggest(String prefix, int limit) {
+        List<PrefixTrie.Suggestion> titles = titleTrie.complete(prefix, limit);
+        List<PrefixTrie.Suggestion> terms = termTrie.complete(prefix, limit);
+        if (terms.isEmpty()) {
+            return titles;
+        }
+        if (titles.isEmpty()) {
+            return terms;
+        }
+        List<PrefixTrie.Suggestion> merged = new ArrayList<>(titles.size() + terms.size());
+        merged.addAll(titles);
+        merged.addAll(terms);
+        merged.sort(PrefixTrie.BEST_FIRST);
+        return merged.subList(0, Math.min(limit, merged.size()));
+    }
+
+    /** Réindexe le titre de l'article dans les tries ({@code titre} null = suppression). */
+    private void updateSuggestions(int articleId, String titre) {
+        suggestionsLock.lock();
+        try {
+            String previous = indexedTitles.get(articleId);
+            if (titre != null && titre.equals(previous)) {
+                return;
+            }
+            long weight = 1 + popularity.getOrDefault(articleId, 0L);
+            if (previous != null) {
+                titleTrie.add(previous, previous, articleId, -weight);
+            }
+            if (titre != null) {
+                indexedTitles.put(articleId, titre);
+                titleTrie.add(titre, titre, articleId, weight);
+                // Termes du nouveau titre d'abord : un terme commun aux deux garde ses recherches
+                titleTerms(titre).forEach((term, surface) -> {
+                    titleTermCounts.merge(term, 1, Integer::sum);
+                    termTrie.add(term, surface, -1, 1);
+                });
+            } else {
+                indexedTitles.remove(articleId);
+                popularity.remove(articleId);
+                pendingTitleHits.remove(articleId);
+            }
+            if (previous != null) {
+                titleTerms(previous).forEach((term, surface) -> {
+                    // Le terme quitte la complétion avec son dernier titre, recherches comprises
+                    if (titleTermCounts.merge(term, -1, Integer::sum) == 0) {
+                        titleTermCounts.remove(term);
+                        termTrie.remove(term);
+                        pendingTermSearches.remove(term);
+                    } else {
+                        termTrie.add(term, surface, -1, -1);
+                    }
+                });
+            }
+        } finally {
+            suggestionsLock.unlock();
+        }
+        applySearches();
+    }
+
+    /**
+     * Compte une recherche sans verrou : les termes cités qui figurent dans un titre, et
+     * l'article arrivé en tête. Un terme présent seulement dans le contenu n'est pas retenu.
+     */
+    private void recordSearch(Set<String> terms, int topArticleId) {
+        for (String term : terms) {
+            if (termTrie.weight(term) > 0) {
+                pendingTermSearches.computeIfAbsent(term, t -> new LongAdder()).increment();
+            }
+        }
+        pendingTitleHits.computeIfAbsent(topArticleId, id -> new LongAdder()).increment();
+        searchesPending.set(true);
+        applySearches();
+    }
+
+    /**
+     * Reporte le journal des recherches dans les tries si personne d'autre ne le fait : un
+     * thread qui trouve le verrou pris repart aussitôt, le détenteur revérifiant en sortant.
+     */
+    private void applySearches() {
+        while (searchesPending.get() && suggestionsLock.tryLock()) {
+            try {
+                searchesPending.set(false);
+                pendingTermSearches.forEach((term, count) -> {
+                    long searches = count.sumThenReset();
+                    if (searches > 0 && titleTermCounts.containsKey(term)) {
+                        termTrie.add(term, term, -1, searches);
+                    }
+                });
+                pendingTitleHits.forEach((articleId, count) -> {
+                    long hits = count.sumThenReset();
+                    String titre = indexedTitles.get(articleId);
+                    if (hits > 0 && titre != null) {
+                        popularity.merge(articleId, hits, Long::sum);
+                        titleTrie.add(titre, titre, articleId, hits);
+                    }
+                });
+            } finally {
+                suggestionsLock.unlock();
+            }
+        }
+    }
+
+    /** Termes distincts d'un titre, avec leur forme d'origine en minuscules. */
+    private Map<String, String> titleTerms(String titre) {
+        Map<String, String> terms = new LinkedHashMap<>();
+        index.getAnalyzer().analyze(titre, 0, (term, position, start, end) ->
+            terms.putIfAbsent(term, titre.substring(start, end).toLowerCase()));
+        return terms;
+    }
+
+    private List<ArticleBaseConnaissance> resolve(int[] articleIds) {
+        List<ArticleBaseConnaissance> result = new ArrayList<>(articleIds.length);
+        for (int articleId : articleIds) {
+            ArticleBaseConnaissance article = articles.get(articleId);
+            if (article != null) {
+                result.add(article);
+            }
+        }
+        return result;
+    }
+
+    public InvertedIndex getInvertedIndex() {
+        return index;
+    }
+}
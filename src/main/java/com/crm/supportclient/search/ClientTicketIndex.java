@@ -0,0 +1,399 @@
+package com.crm.supportclient.search;
+
+import com.crm.supportclient.model.StatutTicket;
+import com.crm.supportclient.model.Ticket;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Tickets de chaque client, triés par date de création, avec leurs comptes par statut.
+ * Les clients sont rangés dans une table à adressage ouvert indexée par l'identifiant
+ * entier (sans boxing), et chaque client garde des tableaux parallèles compacts
+ * (identifiant, date, statut) : une page du portail ou un décompte ne coûte que la
+ * taille du résultat, quel que soit le nombre total de tickets.
+ * Chaque client a son propre verrou ; la table n'est verrouillée en écriture que pour
+ * accueillir un nouveau client. Un ticket récent s'ajoute en fin de tableau ; un ticket
+ * retiré laisse une pierre tombale, comptée dans un arbre de Fenwick des tickets vivants,
+ * et les tableaux ne sont compactés qu'une fois les pierres tombales majoritaires.
+ * Appelé de façon synchrone à chaque changement d'un ticket ({@link #update}).
+ * Le client d'un ticket ne doit plus changer une fois le ticket indexé.
+ */
+public class ClientTicketIndex {
+
+    private static final StatutTicket[] STATUTS = StatutTicket.values();
+    /** Statut d'une pierre tombale. */
+    private static final byte RETIRE = -1;
+    /** Pierres tombales tolérées avant d'envisager un compactage. */
+    private static final int RETIRES_MIN = 32;
+
+    /** Page de tickets d'un client, du plus récent au plus ancien. */
+    public record Page(int total, int[] ticketIds) {
+    }
+
+    /**
+     * Tickets d'un client, triés par (date de création, identifiant), pierres tombales
+     * comprises. {@code arbre} est un arbre de Fenwick (indices à partir de 1) sur les cases
+     * vivantes : rang et sélection du k-ième ticket vivant en O(log n). Gardé par son moniteur.
+     */
+    private static final class TicketsClient {
+        int[] ids = new int[4];
+        long[] creations = new long[4];
+        byte[] statuts = new byte[4];
+        int[] arbre = new int[5];
+        /** Cases occupées, pierres tombales comprises. */
+        int size;
+        int vivants;
+        final int[] parStatut = new int[STATUTS.length];
+
+        /** Position du ticket, ou {@code -(insertion) - 1} s'il est absent. */
+        int indexOf(int id, long creation) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = creations[mid] != creation ? Long.compare(creations[mid], creation)
+                    : Integer.compare(ids[mid], id);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -low - 1;
+        }
+
+        /** Premier indice dont la date est >= {@code creation}. */
+        int lowerBound(long creation) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (creations[mid] < creation) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        boolean vivant(int index) {
+            return statuts[index] != RETIRE;
+        }
+
+        /** Pierre tombale en O(log n) ; compactage quand elles deviennent majoritaires. */
+        void delete(int index) {
+            parStatut[statuts[index]]--;
+            statuts[index] = RETIRE;
+            ajouterArbre(index, -1);
+            vivants--;
+            int retires = size - vivants;
+            if (retires > RETIRES_MIN && retires > vivants) {
+                compacter();
+            }
+        }
+
+        /** En fin de tableau, cas courant, sans décalage ; ailleurs, décalage et arbre reconstruit. */
+        void insert(int index, int id, long creation, StatutTicket statut) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                creations = Arrays.copyOf(creations, capacity);
+                statuts = Arrays.copyOf(statuts, capacity);
+                arbre = Arrays.copyOf(arbre, capacity + 1);
+            }
+            if (index < size) {
+                System.arraycopy(ids, index, ids, index + 1, size - index);
+                System.arraycopy(creations, index, creations, index + 1, size - index);
+                System.arraycopy(statuts, index, statuts, index + 1, size - index);
+            }
+            ids[index] = id;
+            creations[index] = creation;
+            statuts[index] = (byte) statut.ordinal();
+            parStatut[statut.ordinal()]++;
+            vivants++;
+            size++;
+            if (index == size - 1) {
+                // Noeud i couvre (i - lowbit(i), i] : la case ajoutée plus les précédentes couvertes
+                int i = size;
+                arbre[i] = 1 + vivantsAvant(i - 1) - vivantsAvant(i - (i & -i));
+            } else {
+                reconstruireArbre();
+            }
+        }
+
+        /** Nombre de tickets vivants parmi les cases [0, index). */
+        int vivantsAvant(int index) {
+            int somme = 0;
+            for (int i = index; i > 0; i -= i & -i) {
+                somme += arbre[i];
+            }
+            return somme;
+        }
+
+        /** Case du k-ième ticket vivant (k à partir de 0, k < vivants). */
+        int kieme(int k) {
+            int position = 0;
+            int reste = k + 1;
+            for (int pas = Integer.highestOneBit(size); pas > 0; pas >>= 1) {
+                int suivant = position + pas;
+                if (suivant <= size && arbre[suivant] < reste) {
+                    position = suivant;
+                    reste -= arbre[suivant];
+                }
+            }
+            return position;
+        }
+
+        private void ajouterArbre(int index, int delta) {
+            for (int i = index + 1; i <= size; i += i & -i) {
+                arbre[i] += delta;
+            }
+        }
+
+        private void compacter() {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (vivant(i)) {
+                    ids[kept] = ids[i];
+                    creations[kept] = creations[i];
+                    statuts[kept] = statuts[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            reconstruireArbre();
+        }
+
+        private void reconstruireArbre() {
+            Arrays.fill(arbre, 0);
+            for (int i = 1; i <= size; i++) {
+                arbre[i] += vivant(i - 1) ? 1 : 0;
+                int parent = i + (i & -i);
+                if (parent <= size) {
+                    arbre[parent] += arbre[i];
+                }
+            }
+        }
+    }
+
+    /** Protège la table des clients ; le contenu de chaque client est gardé par son moniteur. */
+    private final ReadWriteLock tableLock = new ReentrantReadWriteLock();
+    /** Table int -> clients à adressage ouvert (sondage linéaire), jamais vidée. */
+    private int[] cles = new int[16];
+    private TicketsClient[] valeurs = new TicketsClient[16];
+    private int clients;
+    /** Incrémentée à chaque ticket ajouté, retiré ou changé de statut. */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Ajoute le ticket à son client, ou met à jour son statut s'il y est déjà.
+     * À appeler sous le verrou du ticket.
+     */
+    public void put(Ticket ticket) {
+        if (ticket.estRetire()) {
+            remove(ticket);
+            return;
+        }
+        TicketsClient tickets = client(ticket.getClientId(), true);
+        long creation = TicketSortIndex.cleDate(ticket.getDateCreation());
+        StatutTicket statut = ticket.getStatut();
+        synchronized (tickets) {
+            int index = tickets.indexOf(ticket.getId(), creation);
+            if (index < 0 || !tickets.vivant(index)) {
+                // Date modifiée après l'indexation : retrouvée par parcours (cas exceptionnel)
+                int position = positionParcours(tickets, ticket.getId());
+                if (position < 0) {
+                    if (index >= 0) {
+                        // Pierre tombale du même ticket à la même place : compactée d'abord
+                        tickets.compacter();
+                        index = tickets.indexOf(ticket.getId(), creation);
+                    }
+                    tickets.insert(-index - 1, ticket.getId(), creation, statut);
+                    version.incrementAndGet();
+                    return;
+                }
+                index = position;
+            }
+            int precedent = tickets.statuts[index];
+            if (precedent != statut.ordinal()) {
+                tickets.parStatut[precedent]--;
+                tickets.parStatut[statut.ordinal()]++;
+                tickets.statuts[index] = (byte) statut.ordinal();
+                version.incrementAndGet();
+            }
+        }
+    }
+
+    /** Retire le ticket de son client (supprimé ou archivé). */
+    public boolean remove(Ticket ticket) {
+        TicketsClient tickets = client(ticket.getClientId(), false);
+        if (tickets == null) {
+            return false;
+        }
+        synchronized (tickets) {
+            int index = tickets.indexOf(ticket.getId(), TicketSortIndex.cleDate(ticket.getDateCreation()));
+            if (index < 0 || !tickets.vivant(index)) {
+                index = positionParcours(tickets, ticket.getId());
+                if (index < 0) {
+                    return false;
+                }
+            }
+            tickets.delete(index);
+        }
+        version.incrementAndGet();
+        return true;
+    }
+
+    /** Version de l'index : change dès qu'une page ou un décompte peut avoir changé. */
+    public long version() {
+        return version.get();
+    }
+
+    public int count(int clientId) {
+        TicketsClient tickets = client(clientId, false);
+        if (tickets == null) {
+            return 0;
+        }
+        synchronized (tickets) {
+            return tickets.vivants;
+        }
+    }
+
+    /** Nombre de tickets du client par statut, statuts absents compris (0). */
+    public Map<StatutTicket, Integer> compterParStatut(int clientId) {
+        TicketsClient tickets = client(clientId, false);
+        Map<StatutTicket, Integer> comptes = new EnumMap<>(StatutTicket.class);
+        if (tickets == null) {
+            for (StatutTicket statut : STATUTS) {
+                comptes.put(statut, 0);
+            }
+            return comptes;
+        }
+        synchronized (tickets) {
+            for (StatutTicket statut : STATUTS) {
+                comptes.put(statut, tickets.parStatut[statut.ordinal()]);
+            }
+        }
+        return comptes;
+    }
+
+    /**
+     * Tickets du client créés entre {@code depuis} et {@code jusqua} (inclus, null = sans
+     * borne), du plus récent au plus ancien, à partir du {@code offset}-ième.
+     */
+    public Page page(int clientId, LocalDate depuis, LocalDate jusqua, int offset, int limit) {
+        TicketsClient tickets = client(clientId, false);
+        if (tickets == null) {
+            return new Page(0, new int[0]);
+        }
+        synchronized (tickets) {
+            int from = depuis == null ? 0 : tickets.lowerBound(TicketSortIndex.cleDate(depuis.atStartOfDay()));
+            int to = jusqua == null ? tickets.size
+                : tickets.lowerBound(TicketSortIndex.cleDate(jusqua.plusDays(1).atStartOfDay()));
+            int vivantsAvantFin = tickets.vivantsAvant(to);
+            int total = Math.max(0, vivantsAvantFin - tickets.vivantsAvant(from));
+            int count = Math.max(0, Math.min(limit, total - offset));
+            int[] ids = new int[count];
+            if (count == 0) {
+                return new Page(total, ids);
+            }
+            // Premier ticket de la page par sélection, les suivants en reculant
+            int position = tickets.kieme(vivantsAvantFin - 1 - offset);
+            for (int i = 0; i < count; position--) {
+                if (tickets.vivant(position)) {
+                    ids[i++] = tickets.ids[position];
+                }
+            }
+            return new Page(total, ids);
+        }
+    }
+
+    /** Suit les changements de statut des tickets (création, transition). */
+    public void update(Ticket ticket) {
+        put(ticket);
+    }
+
+    private static int positionParcours(TicketsClient tickets, int id) {
+        for (int i = 0; i < tickets.size; i++) {
+            if (tickets.ids[i] == id && tickets.vivant(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Client existant sous verrou de lecture ; création sous verrou d'écriture. */
+    private TicketsClient client(int clientId, boolean creer) {
+        tableLock.readLock().lock();
+        try {
+            TicketsClient tickets = chercher(clientId);
+            if (tickets != null || !creer) {
+                return tickets;
+            }
+        } finally {
+            tableLock.readLock().unlock();
+        }
+        tableLock.writeLock().lock();
+        try {
+            TicketsClient tickets = chercher(clientId);
+            if (tickets != null) {
+                return tickets;
+            }
+            int mask = cles.length - 1;
+            int slot = melanger(clientId) & mask;
+            while (valeurs[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            tickets = new TicketsClient();
+            cles[slot] = clientId;
+            valeurs[slot] = tickets;
+            if (++clients * 2 > cles.length) {
+                agrandir();
+            }
+            return tickets;
+        } finally {
+            tableLock.writeLock().unlock();
+        }
+    }
+
+    private TicketsClient chercher(int clientId) {
+        int mask = cles.length - 1;
+        for (int slot = melanger(clientId) & mask; valeurs[slot] != null; slot = (slot + 1) & mask) {
+            if (cles[slot] == clientId) {
+                return valeurs[slot];
+            }
+        }
+        return null;
+    }
+
+    private void agrandir() {
+        int[] anciennesCles = cles;
+        TicketsClient[] anciennesValeurs = valeurs;
+        cles = new int[anciennesCles.length * 2];
+        valeurs = new TicketsClient[anciennesCles.length * 2];
+        int mask = cles.length - 1;
+        for (int i = 0; i < anciennesCles.length; i++) {
+            if (anciennesValeurs[i] != null) {
+                int slot = melanger(anciennesCles[i]) & mask;
+                while (valeurs[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                cles[slot] = anciennesCles[i];
+                valeurs[slot] = anciennesValeurs[i];
+            }
+        }
+    }
+
+    private static int melanger(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
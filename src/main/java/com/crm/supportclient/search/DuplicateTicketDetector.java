@@ -0,0 +1,107 @@
+package com.crm.supportclient.search;
+
+import com.crm.supportclient.model.StatutTicket;
+import com.crm.supportclient.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Détection des tickets quasi identiques (MinHash + LSH sur titre et description).
+ * Seuls les tickets ouverts sont indexés : appelé de façon synchrone à chaque changement
+ * d'un ticket ({@link #update}), le détecteur le retire dès sa fermeture, le réindexe s'il
+ * est rouvert et recalcule sa signature si son titre ou sa description change, si bien que
+ * le coût d'une création ne dépend pas de l'historique.
+ */
+public class DuplicateTicketDetector {
+
+    /** 32 bandes de 4 lignes : seuil de candidature vers 0.42 de similarité. */
+    private static final int BANDES = 32;
+    private static final int LIGNES = 4;
+    private static final int LONGUEUR_NGRAMME = 4;
+    private static final int MAX_CANDIDATS_VERIFIES = 256;
+
+    /** Ticket ouvert similaire, avec la similarité de Jaccard estimée (0..1). */
+    public record Candidate(int ticketId, double similarity) {
+    }
+
+    private record Texte(String titre, String description) {
+        static Texte of(Ticket ticket) {
+            return new Texte(ticket.getTitre(), ticket.getDescription());
+        }
+    }
+
+    private final MinHasher hasher;
+    private final LshIndex index = new LshIndex(BANDES, LIGNES);
+    private final double minSimilarity;
+    /** Texte signé de chaque ticket indexé, pour ne re-signer qu'après une modification. */
+    private final Map<Integer, Texte> textes = new ConcurrentHashMap<>();
+
+    public DuplicateTicketDetector(TextAnalyzer analyzer, double minSimilarity) {
+        this.hasher = new MinHasher(analyzer, LONGUEUR_NGRAMME, BANDES * LIGNES, 0x5EEDL);
+        this.minSimilarity = minSimilarity;
+    }
+
+    /** Indexe un ticket qui vient d'être créé et renvoie les tickets ouverts qui lui ressemblent. */
+    public List<Candidate> register(Ticket ticket, int limit) {
+        int[] signature = hasher.signature(ticket.getTitre(), ticket.getDescription());
+        if (signature == null) {
+            return List.of();
+        }
+        List<Candidate> candidates = similar(signature, ticket.getId(), limit);
+        if (ticket.getStatut() != StatutTicket.FERME) {
+            index.put(ticket.getId(), signature);
+            textes.put(ticket.getId(), Texte.of(ticket));
+        }
+        return candidates;
+    }
+
+    /** Tickets ouverts ressemblant au texte, sans rien indexer. */
+    public List<Candidate> findSimilar(String titre, String description, int limit) {
+        int[] signature = hasher.signature(titre, description);
+        return signature == null ? List.of() : similar(signature, 0, limit);
+    }
+
+    private List<Candidate> similar(int[] signature, int excludedId, int limit) {
+        List<Candidate> candidates = new ArrayList<>();
+        for (InvertedIndex.ScoredDoc doc : index.similar(signature, excludedId, minSimilarity,
+                MAX_CANDIDATS_VERIFIES, limit)) {
+            candidates.add(new Candidate(doc.docId(), doc.score()));
+        }
+        return candidates;
+    }
+
+    public boolean evict(int ticketId) {
+        textes.remove(ticketId);
+        return index.remove(ticketId);
+    }
+
+    /** Nombre de tickets ouverts indexés. */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Retire les tickets fermés ou retirés ; indexe les tickets rouverts et re-signe ceux
+     * dont le titre ou la description a changé. À appeler sous le verrou du ticket.
+     */
+    public void update(Ticket ticket) {
+        if (ticket.getStatut() == StatutTicket.FERME || ticket.estRetire()) {
+            evict(ticket.getId());
+            return;
+        }
+        Texte texte = Texte.of(ticket);
+        if (texte.equals(textes.get(ticket.getId())) && index.contains(ticket.getId())) {
+            return;
+        }
+        int[] signature = hasher.signature(texte.titre(), texte.description());
+        if (signature != null) {
+            index.put(ticket.getId(), signature);
+            textes.put(ticket.getId(), texte);
+        } else {
+            evict(ticket.getId());
+        }
+    }
+}
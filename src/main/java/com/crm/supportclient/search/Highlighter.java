@@ -0,0 +1,81 @@
+package com.crm.supportclient.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Extrait de texte centré sur les termes trouvés, échappé pour HTML,
+ * les termes étant entourés de {@code <mark>}.
+ */
+public final class Highlighter {
+
+    private static final String OPEN = "<mark>";
+    private static final String CLOSE = "</mark>";
+
+    private final TextAnalyzer analyzer;
+    private final int maxLength;
+
+    public Highlighter(TextAnalyzer analyzer, int maxLength) {
+        this.analyzer = analyzer;
+        this.maxLength = maxLength;
+    }
+
+    public String snippet(String text, Set<String> terms) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        List<int[]> hits = new ArrayList<>();
+        analyzer.analyze(text, 0, (term, position, start, end) -> {
+            if (terms.contains(term)) {
+                hits.add(new int[] {start, end});
+            }
+        });
+
+        // Fenêtre démarrant un peu avant le premier terme trouvé
+        int from = hits.isEmpty() ? 0 : Math.max(0, hits.get(0)[0] - maxLength / 4);
+        if (from > 0) {
+            int space = text.indexOf(' ', from);
+            from = space >= 0 && space < hits.get(0)[0] ? space + 1 : from;
+        }
+        int to = Math.min(text.length(), from + maxLength);
+
+        StringBuilder out = new StringBuilder(to - from + 32);
+        if (from > 0) {
+            out.append("...");
+        }
+        int cursor = from;
+        for (int[] hit : hits) {
+            if (hit[0] < from) {
+                continue;
+            }
+            if (hit[1] > to) {
+                break;
+            }
+            appendEscaped(text, cursor, hit[0], out);
+            out.append(OPEN);
+            appendEscaped(text, hit[0], hit[1], out);
+            out.append(CLOSE);
+            cursor = hit[1];
+        }
+        appendEscaped(text, cursor, to, out);
+        if (to < text.length()) {
+            out.append("...");
+        }
+        return out.toString();
+    }
+
+    private static void appendEscaped(String text, int from, int to, StringBuilder out) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,539 @@
+package com.crm.supportclient.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index inversé en mémoire, positionnel, sur des documents identifiés par un entier.
+ * Chaque document est composé de champs (ex: titre, contenu) indexés à la suite,
+ * séparés par un écart de positions pour qu'une phrase ne chevauche pas deux champs.
+ * Mises à jour incrémentales ; lectures concurrentes sous verrou lecture/écriture.
+ * Le classement utilise BM25, avec un poids par champ (BM25F simplifié).
+ * Les mots-clés de filtre, qui changent souvent (statut, agent), sont gardés à part dans un
+ * {@link RoaringBitmap} par mot-clé : les déplacer ne coûte qu'un ajout et un retrait, quel
+ * que soit le nombre de documents, et ne touche pas aux postings du texte.
+ */
+public class InvertedIndex {
+
+    /** Écart de positions entre deux champs d'un même document. */
+    static final int FIELD_GAP = 100;
+
+    private static final String[] NO_TERMS = new String[0];
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /** Document trouvé et son score. */
+    public record ScoredDoc(int docId, double score) {
+    }
+
+    /** Page de résultats classés, avec le nombre total de documents trouvés. */
+    public record TopDocs(int totalHits, List<ScoredDoc> docs) {
+    }
+
+    /**
+     * Résultat d'une recherche bornée dans le temps : {@code complete} est faux si
+     * l'échéance a interrompu le calcul (les termes les plus rares ont alors été comptés).
+     */
+    public record BudgetedTopDocs(int totalHits, List<ScoredDoc> docs, boolean complete) {
+    }
+
+    /** Terme du dictionnaire proche d'un mot cherché. */
+    public record FuzzyTerm(String term, int distance, int documentFrequency) {
+    }
+
+    /** Distance la plus faible d'abord, puis terme le plus fréquent. */
+    private static final Comparator<FuzzyTerm> CLOSEST_FIRST = Comparator
+        .comparingInt(FuzzyTerm::distance)
+        .thenComparing(Comparator.comparingInt(FuzzyTerm::documentFrequency).reversed())
+        .thenComparing(FuzzyTerm::term);
+
+    private final TextAnalyzer analyzer;
+    private final double[] fieldWeights;
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, RoaringBitmap> keywordDocs = new HashMap<>();
+    private final Map<Integer, DocEntry> docs = new HashMap<>();
+    private final TermDictionary dictionary = new TermDictionary();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private double totalLength;
+
+    /**
+     * Termes distincts et mots-clés d'un document (pour la suppression), position de début de
+     * chaque champ, et longueur pondérée (pour la normalisation BM25).
+     */
+    private record DocEntry(String[] terms, String[] keywords, int[] fieldStarts, double length) {
+    }
+
+    /**
+     * @param fieldWeights poids de chaque champ dans le score (1.0 pour les champs non précisés)
+     */
+    public InvertedIndex(TextAnalyzer analyzer, double... fieldWeights) {
+        this.analyzer = analyzer;
+        this.fieldWeights = fieldWeights.clone();
+    }
+
+    public TextAnalyzer getAnalyzer() {
+        return analyzer;
+    }
+
+    /** Indexe (ou réindexe) un document. L'analyse du texte se fait hors verrou. */
+    public void index(int docId, String... fields) {
+        index(docId, fields, List.of());
+    }
+
+    /**
+     * Indexe un document avec, en plus du texte, des mots-clés pris tels quels
+     * (ex. {@code statut:OUVERT}) : sans position ni poids, ils ne servent qu'aux filtres
+     * ({@link SearchQuery#withFilters}) et ne comptent ni dans la longueur ni dans le score.
+     * Une réindexation remplace sur place les postings des termes conservés.
+     */
+    public void index(int docId, String[] fields, Collection<String> keywords) {
+        Map<String, int[]> termPositions = new HashMap<>();
+        Map<String, Integer> counts = new HashMap<>();
+        int[] fieldLengths = new int[fields.length];
+        int[] fieldStarts = new int[fields.length];
+        int position = 0;
+        for (int f = 0; f < fields.length; f++) {
+            int field = f;
+            fieldStarts[f] = position;
+            position = analyzer.analyze(fields[f], position, (term, pos) -> {
+                int[] current = termPositions.get(term);
+                int count = counts.getOrDefault(term, 0);
+                if (current == null) {
+                    current = new int[2];
+                } else if (count == current.length) {
+                    current = Arrays.copyOf(current, count * 2);
+                }
+                current[count] = pos;
+                termPositions.put(term, current);
+                counts.put(term, count + 1);
+                fieldLengths[field]++;
+            }) + FIELD_GAP;
+        }
+
+        double length = 0;
+        for (int f = 0; f < fields.length; f++) {
+            length += fieldWeight(f) * fieldLengths[f];
+        }
+
+        String[] terms = termPositions.keySet().toArray(new String[0]);
+        String[] keywordArray = keywords.toArray(new String[0]);
+        lock.writeLock().lock();
+        try {
+            DocEntry previous = docs.get(docId);
+            if (previous != null) {
+                totalLength -= previous.length();
+                for (String term : previous.terms()) {
+                    if (!termPositions.containsKey(term)) {
+                        removePosting(term, docId);
+                    }
+                }
+            }
+            for (String term : terms) {
+                postings.computeIfAbsent(term, t -> {
+                    dictionary.add(t);
+                    return new Postings();
+                }).put(docId, Arrays.copyOf(termPositions.get(term), counts.get(term)));
+            }
+            moveKeywords(docId, previous == null ? NO_TERMS : previous.keywords(), keywordArray);
+            docs.put(docId, new DocEntry(terms, keywordArray, fieldStarts, length));
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remplace les mots-clés d'un document déjà indexé, sans toucher à son texte.
+     * Renvoie false si le document n'est pas indexé.
+     */
+    public boolean updateKeywords(int docId, Collection<String> keywords) {
+        String[] keywordArray = keywords.toArray(new String[0]);
+        lock.writeLock().lock();
+        try {
+            DocEntry entry = docs.get(docId);
+            if (entry == null) {
+                return false;
+            }
+            moveKeywords(docId, entry.keywords(), keywordArray);
+            docs.put(docId, new DocEntry(entry.terms(), keywordArray, entry.fieldStarts(), entry.length()));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void moveKeywords(int docId, String[] previous, String[] keywords) {
+        List<String> kept = Arrays.asList(keywords);
+        for (String keyword : previous) {
+            if (!kept.contains(keyword)) {
+                RoaringBitmap bitmap = keywordDocs.get(keyword);
+                if (bitmap != null) {
+                    bitmap.remove(docId);
+                    if (bitmap.isEmpty()) {
+                        keywordDocs.remove(keyword);
+                    }
+                }
+            }
+        }
+        for (String keyword : keywords) {
+            keywordDocs.computeIfAbsent(keyword, k -> new RoaringBitmap()).add(docId);
+        }
+    }
+
+    private void removePosting(String term, int docId) {
+        Postings list = postings.get(term);
+        if (list != null && list.remove(docId) && list.size() == 0) {
+            postings.remove(term);
+            dictionary.remove(term);
+        }
+    }
+
+    public boolean remove(int docId) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(docId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean removeLocked(int docId) {
+        DocEntry entry = docs.remove(docId);
+        if (entry == null) {
+            return false;
+        }
+        totalLength -= entry.length();
+        for (String term : entry.terms()) {
+            removePosting(term, docId);
+        }
+        moveKeywords(docId, entry.keywords(), NO_TERMS);
+        return true;
+    }
+
+    public boolean contains(int docId) {
+        lock.readLock().lock();
+        try {
+            return docs.containsKey(docId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Nombre de termes distincts (mots-clés compris). */
+    public int vocabularySize() {
+        lock.readLock().lock();
+        try {
+            return postings.size() + keywordDocs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Nombre de documents contenant le terme (déjà normalisé). */
+    public int documentFrequency(String term) {
+        lock.readLock().lock();
+        try {
+            return frequency(term);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Termes de l'index à au plus {@code maxDistance} modifications (insertion, suppression,
+     * substitution ou transposition de deux lettres voisines) du terme donné, déjà normalisé.
+     * Les {@code prefixLength} premières lettres doivent être exactes, ce qui réduit le parcours.
+     * Le terme lui-même est exclu ; les plus proches puis les plus fréquents d'abord.
+     */
+    public List<FuzzyTerm> fuzzyTerms(String term, int maxDistance, int prefixLength, int limit) {
+        lock.readLock().lock();
+        try {
+            List<FuzzyTerm> found = new ArrayList<>();
+            dictionary.search(term, maxDistance, prefixLength, (candidate, distance) -> {
+                if (distance > 0) {
+                    found.add(new FuzzyTerm(candidate, distance, postings.get(candidate).size()));
+                }
+            });
+            found.sort(CLOSEST_FIRST);
+            return found.size() <= limit ? found : List.copyOf(found.subList(0, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Identifiants (triés) des documents satisfaisant la requête. */
+    public int[] match(SearchQuery query) {
+        lock.readLock().lock();
+        try {
+            return matchLocked(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] matchLocked(SearchQuery query) {
+        int[] result = new int[0];
+        for (List<SearchQuery.Clause> group : query.getGroups()) {
+            result = union(result, matchGroup(group));
+        }
+        return result;
+    }
+
+    public int[] match(String query) {
+        return match(SearchQuery.parse(query, analyzer));
+    }
+
+    /**
+     * Recherche classée par BM25. Seuls {@code offset + limit} documents sont conservés
+     * pendant le calcul (tas borné), au lieu de trier tous les documents trouvés.
+     */
+    public TopDocs search(SearchQuery query, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] matches = matchLocked(query);
+            int capacity = offset + limit;
+            if (capacity <= 0 || matches.length == 0) {
+                return new TopDocs(matches.length, List.of());
+            }
+
+            Set<String> terms = query.terms();
+            String[] queryTerms = terms.toArray(new String[0]);
+            Postings[] lists = new Postings[queryTerms.length];
+            double[] idf = new double[queryTerms.length];
+            int docCount = docs.size();
+            for (int t = 0; t < queryTerms.length; t++) {
+                lists[t] = postings.get(queryTerms[t]);
+                int df = lists[t] == null ? 0 : lists[t].size();
+                idf[t] = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+            }
+            double averageLength = docCount == 0 ? 1 : Math.max(totalLength / docCount, 1e-9);
+
+            TopDocsCollector collector = new TopDocsCollector(capacity);
+            for (int docId : matches) {
+                collector.offer(docId, score(docId, lists, idf, averageLength));
+            }
+            List<ScoredDoc> best = collector.sorted();
+            List<ScoredDoc> page = offset >= best.size() ? List.of() : best.subList(offset, best.size());
+            return new TopDocs(matches.length, List.copyOf(page));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Documents contenant au moins un des termes (déjà normalisés), classés par BM25,
+     * calculés terme par terme du plus rare au plus fréquent. Les termes restants sont
+     * abandonnés quand {@code deadlineNanos} ({@link System#nanoTime()}) est dépassé :
+     * le résultat reste utilisable, les termes rares étant les plus discriminants.
+     */
+    public BudgetedTopDocs searchAny(Collection<String> terms, int limit, long deadlineNanos) {
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list != null) {
+                    lists.add(list);
+                }
+            }
+            lists.sort(Comparator.comparingInt(Postings::size));
+            int docCount = docs.size();
+            double averageLength = docCount == 0 ? 1 : Math.max(totalLength / docCount, 1e-9);
+
+            Map<Integer, Double> scores = new HashMap<>();
+            boolean complete = true;
+            for (Postings list : lists) {
+                if (System.nanoTime() - deadlineNanos > 0) {
+                    complete = false;
+                    break;
+                }
+                int df = list.size();
+                double idf = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+                for (int i = 0; i < df; i++) {
+                    int docId = list.docId(i);
+                    scores.merge(docId, termScore(docs.get(docId), list.positions(i), idf, averageLength), Double::sum);
+                }
+            }
+
+            TopDocsCollector collector = new TopDocsCollector(limit);
+            scores.forEach(collector::offer);
+            return new BudgetedTopDocs(scores.size(), collector.sorted(), complete);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double score(int docId, Postings[] lists, double[] idf, double averageLength) {
+        DocEntry entry = docs.get(docId);
+        double score = 0;
+        for (int t = 0; t < lists.length; t++) {
+            if (lists[t] == null) {
+                continue;
+            }
+            int index = lists[t].indexOf(docId);
+            if (index >= 0) {
+                score += termScore(entry, lists[t].positions(index), idf[t], averageLength);
+            }
+        }
+        return score;
+    }
+
+    /** Contribution BM25F d'un terme : occurrences pondérées par le poids de leur champ. */
+    private double termScore(DocEntry entry, int[] positions, double idf, double averageLength) {
+        int[] fieldStarts = entry.fieldStarts();
+        double norm = K1 * (1 - B + B * entry.length() / averageLength);
+        double tf = 0;
+        int field = 0;
+        for (int position : positions) {
+            while (field + 1 < fieldStarts.length && position >= fieldStarts[field + 1]) {
+                field++;
+            }
+            tf += fieldWeight(field);
+        }
+        return idf * tf * (K1 + 1) / (tf + norm);
+    }
+
+    private double fieldWeight(int field) {
+        return field < fieldWeights.length ? fieldWeights[field] : 1.0;
+    }
+
+    /** Conjonction des clauses, en commençant par la plus sélective. */
+    private int[] matchGroup(List<SearchQuery.Clause> group) {
+        SearchQuery.Clause[] clauses = group.toArray(new SearchQuery.Clause[0]);
+        Arrays.sort(clauses, (a, b) -> Integer.compare(estimate(a), estimate(b)));
+        int[] result = null;
+        for (SearchQuery.Clause clause : clauses) {
+            result = matchClause(clause, result);
+            if (result.length == 0) {
+                break;
+            }
+        }
+        return result == null ? new int[0] : result;
+    }
+
+    private int estimate(SearchQuery.Clause clause) {
+        int min = Integer.MAX_VALUE;
+        for (String term : clause.terms()) {
+            min = Math.min(min, frequency(term));
+        }
+        return min;
+    }
+
+    private int frequency(String term) {
+        Postings list = postings.get(term);
+        if (list != null) {
+            return list.size();
+        }
+        RoaringBitmap bitmap = keywordDocs.get(term);
+        return bitmap == null ? 0 : bitmap.cardinality();
+    }
+
+    /** Documents contenant la clause, restreints à {@code candidates} si non null. */
+    private int[] matchClause(SearchQuery.Clause clause, int[] candidates) {
+        String[] terms = clause.terms();
+        RoaringBitmap keyword = terms.length == 1 ? keywordDocs.get(terms[0]) : null;
+        if (keyword != null) {
+            return candidates == null ? keyword.toArray() : intersect(candidates, keyword);
+        }
+        Postings[] lists = new Postings[terms.length];
+        for (int t = 0; t < terms.length; t++) {
+            lists[t] = postings.get(terms[t]);
+            if (lists[t] == null) {
+                return new int[0];
+            }
+        }
+        int[] result = candidates != null ? candidates : lists[0].docIds();
+        for (int t = candidates != null ? 0 : 1; t < lists.length; t++) {
+            result = intersect(result, lists[t]);
+        }
+        if (!clause.isPhrase()) {
+            return result;
+        }
+        int kept = 0;
+        for (int docId : result) {
+            if (phraseMatches(lists, clause.offsets(), docId)) {
+                result[kept++] = docId;
+            }
+        }
+        return Arrays.copyOf(result, kept);
+    }
+
+    private static boolean phraseMatches(Postings[] lists, int[] offsets, int docId) {
+        int[][] positions = new int[lists.length][];
+        for (int t = 0; t < lists.length; t++) {
+            positions[t] = lists[t].positions(lists[t].indexOf(docId));
+        }
+        for (int start : positions[0]) {
+            boolean all = true;
+            for (int t = 1; t < lists.length && all; t++) {
+                all = Arrays.binarySearch(positions[t], start + offsets[t]) >= 0;
+            }
+            if (all) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] intersect(int[] docIds, Postings list) {
+        int[] result = new int[Math.min(docIds.length, list.size())];
+        int size = 0;
+        for (int docId : docIds) {
+            if (list.indexOf(docId) >= 0) {
+                result[size++] = docId;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static int[] intersect(int[] docIds, RoaringBitmap bitmap) {
+        int[] result = new int[docIds.length];
+        int size = 0;
+        for (int docId : docIds) {
+            if (bitmap.contains(docId)) {
+                result[size++] = docId;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        int[] result = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < a.length || j < b.length) {
+            int next;
+            if (j >= b.length || (i < a.length && a[i] < b[j])) {
+                next = a[i++];
+            } else if (i >= a.length || b[j] < a[i]) {
+                next = b[j++];
+            } else {
+                next = a[i++];
+                j++;
+            }
+            result[size++] = next;
+        }
+        return Arrays.copyOf(result, size);
+    }
+}
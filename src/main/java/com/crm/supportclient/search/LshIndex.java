@@ -0,0 +1,108 @@
+package com.crm.supportclient.search;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index LSH de signatures MinHash : la signature est découpée en {@code bands} bandes
+ * de {@code rows} composantes, et deux documents sont candidats s'ils ont une bande
+ * identique. Avec b bandes de r lignes, la probabilité d'être candidats vaut
+ * 1 - (1 - s^r)^b pour une similarité s (seuil ≈ (1/b)^(1/r)).
+ * Ajout et suppression ne touchent que les b seaux du document.
+ */
+public class LshIndex {
+
+    private final int bands;
+    private final int rows;
+    private final Map<Long, Set<Integer>> buckets = new HashMap<>();
+    private final Map<Integer, int[]> signatures = new HashMap<>();
+
+    public LshIndex(int bands, int rows) {
+        if (bands < 1 || rows < 1) {
+            throw new IllegalArgumentException("bands et rows doivent etre >= 1");
+        }
+        this.bands = bands;
+        this.rows = rows;
+    }
+
+    public int signatureSize() {
+        return bands * rows;
+    }
+
+    public synchronized void put(int docId, int[] signature) {
+        removeLocked(docId);
+        signatures.put(docId, signature);
+        for (int band = 0; band < bands; band++) {
+            buckets.computeIfAbsent(bucketKey(signature, band), k -> new HashSet<>()).add(docId);
+        }
+    }
+
+    public synchronized boolean remove(int docId) {
+        return removeLocked(docId);
+    }
+
+    private boolean removeLocked(int docId) {
+        int[] signature = signatures.remove(docId);
+        if (signature == null) {
+            return false;
+        }
+        for (int band = 0; band < bands; band++) {
+            long key = bucketKey(signature, band);
+            Set<Integer> bucket = buckets.get(key);
+            if (bucket != null && bucket.remove(docId) && bucket.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+        return true;
+    }
+
+    public synchronized boolean contains(int docId) {
+        return signatures.containsKey(docId);
+    }
+
+    public synchronized int size() {
+        return signatures.size();
+    }
+
+    /**
+     * Documents partageant au moins une bande avec la signature et dont la similarité
+     * estimée atteint {@code minSimilarity}, les plus proches d'abord. Au plus
+     * {@code maxCandidates} candidats sont vérifiés, pour borner le coût quand un
+     * incident produit des centaines de tickets identiques.
+     */
+    public synchronized List<InvertedIndex.ScoredDoc> similar(int[] signature, int excludedId,
+                                                              double minSimilarity, int maxCandidates, int limit) {
+        Set<Integer> seen = new HashSet<>();
+        TopDocsCollector collector = new TopDocsCollector(limit);
+        for (int band = 0; band < bands && seen.size() < maxCandidates; band++) {
+            Set<Integer> bucket = buckets.get(bucketKey(signature, band));
+            if (bucket == null) {
+                continue;
+            }
+            for (Integer docId : bucket) {
+                if (docId == excludedId || !seen.add(docId)) {
+                    continue;
+                }
+                double similarity = MinHasher.similarity(signature, signatures.get(docId));
+                if (similarity >= minSimilarity) {
+                    collector.offer(docId, similarity);
+                }
+                if (seen.size() >= maxCandidates) {
+                    break;
+                }
+            }
+        }
+        return collector.sorted();
+    }
+
+    private long bucketKey(int[] signature, int band) {
+        long hash = band;
+        for (int i = band * rows; i < (band + 1) * rows; i++) {
+            hash = hash * 0x9E3779B97F4A7C15L + signature[i];
+        }
+        return hash;
+    }
+}
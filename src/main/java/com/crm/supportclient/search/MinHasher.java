@@ -0,0 +1,86 @@
+package com.crm.supportclient.search;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Signature MinHash d'un texte : pour chacune des {@code signatureSize} fonctions de hachage,
+ * le minimum sur les n-grammes de caractères du texte analysé (mots vides retirés, accents repliés).
+ * La proportion de composantes égales entre deux signatures estime la similarité de Jaccard
+ * de leurs ensembles de n-grammes.
+ */
+public final class MinHasher {
+
+    private final TextAnalyzer analyzer;
+    private final int shingleLength;
+    private final long[] seeds;
+
+    public MinHasher(TextAnalyzer analyzer, int shingleLength, int signatureSize, long seed) {
+        if (shingleLength < 1 || signatureSize < 1) {
+            throw new IllegalArgumentException("shingleLength et signatureSize doivent etre >= 1");
+        }
+        this.analyzer = analyzer;
+        this.shingleLength = shingleLength;
+        this.seeds = new long[signatureSize];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < signatureSize; i++) {
+            seeds[i] = random.nextLong();
+        }
+    }
+
+    public int signatureSize() {
+        return seeds.length;
+    }
+
+    /** Signature des textes concaténés ; null s'ils ne contiennent aucun mot retenu. */
+    public int[] signature(String... texts) {
+        StringBuilder normalized = new StringBuilder();
+        for (String text : texts) {
+            analyzer.analyze(text, 0, (term, position) -> {
+                if (normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(term);
+            });
+        }
+        if (normalized.length() == 0) {
+            return null;
+        }
+
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        int shingles = Math.max(1, normalized.length() - shingleLength + 1);
+        for (int start = 0; start < shingles; start++) {
+            long shingle = 0;
+            int end = Math.min(normalized.length(), start + shingleLength);
+            for (int i = start; i < end; i++) {
+                shingle = shingle * 31 + normalized.charAt(i);
+            }
+            for (int h = 0; h < seeds.length; h++) {
+                int value = (int) (mix(shingle ^ seeds[h]) >>> 33);
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /** Similarité de Jaccard estimée : part des composantes égales. */
+    public static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    /** Finaliseur de SplitMix64 : bonne dispersion pour un coût de quelques multiplications. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,68 @@
+package com.crm.supportclient.search;
+
+import java.util.Arrays;
+
+/**
+ * Liste de postings d'un terme : identifiants de documents triés, et pour chacun
+ * les positions (triées) du terme. Tableaux compacts, insertion en fin quasi gratuite
+ * puisque les identifiants arrivent en ordre croissant.
+ */
+final class Postings {
+
+    private int[] docIds = new int[4];
+    private int[][] positions = new int[4][];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    int docId(int index) {
+        return docIds[index];
+    }
+
+    int[] positions(int index) {
+        return positions[index];
+    }
+
+    /** Index du document, ou valeur négative s'il est absent. */
+    int indexOf(int docId) {
+        return Arrays.binarySearch(docIds, 0, size, docId);
+    }
+
+    void put(int docId, int[] termPositions) {
+        int index = indexOf(docId);
+        if (index >= 0) {
+            positions[index] = termPositions;
+            return;
+        }
+        int insertAt = -index - 1;
+        if (size == docIds.length) {
+            int capacity = size + (size >> 1) + 1;
+            docIds = Arrays.copyOf(docIds, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+        }
+        System.arraycopy(docIds, insertAt, docIds, insertAt + 1, size - insertAt);
+        System.arraycopy(positions, insertAt, positions, insertAt + 1, size - insertAt);
+        docIds[insertAt] = docId;
+        positions[insertAt] = termPositions;
+        size++;
+    }
+
+    boolean remove(int docId) {
+        int index = indexOf(docId);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(docIds, index + 1, docIds, index, size - index - 1);
+        System.arraycopy(positions, index + 1, positions, index, size - index - 1);
+        size--;
+        positions[size] = null;
+        return true;
+    }
+
+    /** Copie des identifiants (triés). */
+    int[] docIds() {
+        return Arrays.copyOf(docIds, size);
+    }
+}
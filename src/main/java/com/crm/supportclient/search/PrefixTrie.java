@@ -0,0 +1,227 @@
+package com.crm.supportclient.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Trie de complétion : chaque noeud garde en cache les {@code topK} meilleures
+ * entrées de son sous-arbre, recalculées à chaque écriture le long du chemin modifié.
+ * Une lecture descend le préfixe et renvoie ce cache, sans verrou ni parcours du sous-arbre.
+ * Les clés sont repliées (minuscules, sans accents) par l'analyseur.
+ */
+public class PrefixTrie {
+
+    /** Complétion proposée ; {@code articleId} vaut -1 pour un terme. */
+    public record Suggestion(String text, long weight, int articleId) {
+
+        public boolean isTitle() {
+            return articleId >= 0;
+        }
+    }
+
+    /** Poids décroissant, puis texte le plus court, puis ordre alphabétique. */
+    static final Comparator<Suggestion> BEST_FIRST = Comparator
+        .comparingLong(Suggestion::weight).reversed()
+        .thenComparingInt(s -> s.text().length())
+        .thenComparing(Suggestion::text);
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+
+    private static final class Node {
+        final char ch;
+        /** Triés par caractère ; remplacés en bloc (copie à l'écriture). */
+        volatile Node[] children = NO_CHILDREN;
+        volatile Suggestion entry;
+        volatile Suggestion[] top = NO_SUGGESTIONS;
+
+        Node(char ch) {
+            this.ch = ch;
+        }
+
+        Node child(char c) {
+            Node[] nodes = children;
+            int low = 0;
+            int high = nodes.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midChar = nodes[mid].ch;
+                if (midChar < c) {
+                    low = mid + 1;
+                } else if (midChar > c) {
+                    high = mid - 1;
+                } else {
+                    return nodes[mid];
+                }
+            }
+            return null;
+        }
+    }
+
+    private final TextAnalyzer analyzer;
+    private final int topK;
+    private final Node root = new Node('\0');
+    private int size;
+
+    public PrefixTrie(TextAnalyzer analyzer, int topK) {
+        if (topK < 1) {
+            throw new IllegalArgumentException("topK doit etre >= 1: " + topK);
+        }
+        this.analyzer = analyzer;
+        this.topK = topK;
+    }
+
+    /**
+     * Ajoute {@code delta} au poids de l'entrée {@code key}, en la créant si besoin
+     * ({@code text} et {@code articleId} ne servent qu'à la création).
+     * L'entrée disparaît quand son poids devient nul ou négatif.
+     */
+    public synchronized void add(String key, String text, int articleId, long delta) {
+        String folded = analyzer.normalize(key);
+        if (folded.isEmpty()) {
+            return;
+        }
+        Node[] path = new Node[folded.length() + 1];
+        path[0] = root;
+        Node node = root;
+        for (int i = 0; i < folded.length(); i++) {
+            Node next = node.child(folded.charAt(i));
+            if (next == null) {
+                next = insertChild(node, folded.charAt(i));
+            }
+            path[i + 1] = next;
+            node = next;
+        }
+
+        Suggestion current = node.entry;
+        long weight = (current == null ? 0 : current.weight()) + delta;
+        if (current == null && weight > 0) {
+            size++;
+        } else if (current != null && weight <= 0) {
+            size--;
+        }
+        node.entry = weight <= 0 ? null
+            : current == null ? new Suggestion(text, weight, articleId)
+            : new Suggestion(current.text(), weight, current.articleId());
+        refresh(path, folded);
+    }
+
+    /** Supprime l'entrée et renvoie son poids (0 si absente). */
+    public synchronized long remove(String key) {
+        String folded = analyzer.normalize(key);
+        Node[] path = new Node[folded.length() + 1];
+        path[0] = root;
+        Node node = root;
+        for (int i = 0; i < folded.length() && node != null; i++) {
+            node = node.child(folded.charAt(i));
+            path[i + 1] = node;
+        }
+        if (node == null || node.entry == null) {
+            return 0;
+        }
+        long weight = node.entry.weight();
+        node.entry = null;
+        size--;
+        refresh(path, folded);
+        return weight;
+    }
+
+    /** Poids de l'entrée, 0 si absente. */
+    public long weight(String key) {
+        Node node = find(analyzer.normalize(key));
+        Suggestion entry = node == null ? null : node.entry;
+        return entry == null ? 0 : entry.weight();
+    }
+
+    /**
+     * Meilleures complétions du préfixe. Sans verrou ; un préfixe ASCII
+     * ne provoque aucune allocation hormis la vue renvoyée.
+     */
+    public List<Suggestion> complete(CharSequence prefix, int limit) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            char c = prefix.charAt(i);
+            if (c < 128) {
+                node = node.child(Character.toLowerCase(c));
+            } else {
+                String folded = analyzer.normalize(String.valueOf(c));
+                for (int j = 0; j < folded.length() && node != null; j++) {
+                    node = node.child(folded.charAt(j));
+                }
+            }
+        }
+        if (node == null || limit < 1) {
+            return List.of();
+        }
+        Suggestion[] top = node.top;
+        return Collections.unmodifiableList(Arrays.asList(top).subList(0, Math.min(limit, top.length)));
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private Node find(String folded) {
+        Node node = root;
+        for (int i = 0; i < folded.length() && node != null; i++) {
+            node = node.child(folded.charAt(i));
+        }
+        return node;
+    }
+
+    private static Node insertChild(Node parent, char c) {
+        Node[] nodes = parent.children;
+        int index = 0;
+        while (index < nodes.length && nodes[index].ch < c) {
+            index++;
+        }
+        Node[] copy = new Node[nodes.length + 1];
+        System.arraycopy(nodes, 0, copy, 0, index);
+        System.arraycopy(nodes, index, copy, index + 1, nodes.length - index);
+        Node node = new Node(c);
+        copy[index] = node;
+        parent.children = copy;
+        return node;
+    }
+
+    private static void removeChild(Node parent, Node child) {
+        Node[] nodes = parent.children;
+        int index = Arrays.asList(nodes).indexOf(child);
+        if (index < 0) {
+            return;
+        }
+        Node[] copy = new Node[nodes.length - 1];
+        System.arraycopy(nodes, 0, copy, 0, index);
+        System.arraycopy(nodes, index + 1, copy, index, nodes.length - index - 1);
+        parent.children = copy;
+    }
+
+    /** Recalcule les caches du noeud modifié jusqu'à la racine, en élaguant les branches vides. */
+    private void refresh(Node[] path, String folded) {
+        for (int depth = folded.length(); depth >= 0; depth--) {
+            Node node = path[depth];
+            node.top = collectTop(node);
+            if (depth > 0 && node.top.length == 0) {
+                removeChild(path[depth - 1], node);
+            }
+        }
+    }
+
+    private Suggestion[] collectTop(Node node) {
+        List<Suggestion> candidates = new ArrayList<>();
+        if (node.entry != null) {
+            candidates.add(node.entry);
+        }
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        if (candidates.isEmpty()) {
+            return NO_SUGGESTIONS;
+        }
+        candidates.sort(BEST_FIRST);
+        return candidates.subList(0, Math.min(topK, candidates.size())).toArray(NO_SUGGESTIONS);
+    }
+}
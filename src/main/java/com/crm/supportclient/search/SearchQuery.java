@@ -0,0 +1,191 @@
+package com.crm.supportclient.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Requête de recherche analysée.
+ * Syntaxe : les mots sont combinés en ET, {@code OR} (ou {@code OU}) sépare des alternatives,
+ * et les guillemets délimitent une phrase ({@code "mot de passe"}).
+ * La requête est donc une disjonction de groupes, chaque groupe exigeant toutes ses clauses.
+ */
+public final class SearchQuery {
+
+    /**
+     * Termes devant apparaître aux positions relatives données (un mot seul est
+     * une phrase d'un terme).
+     */
+    public record Clause(String[] terms, int[] offsets) {
+
+        public boolean isPhrase() {
+            return terms.length > 1;
+        }
+
+        @Override
+        public String toString() {
+            return isPhrase() ? '"' + String.join(" ", terms) + '"' : terms[0];
+        }
+    }
+
+    private final List<List<Clause>> groups;
+    /** Mots-clés exigés par chaque groupe, exclus du score (voir {@link #withFilters}). */
+    private final Set<String> filters;
+
+    private SearchQuery(List<List<Clause>> groups) {
+        this(groups, Set.of());
+    }
+
+    private SearchQuery(List<List<Clause>> groups, Set<String> filters) {
+        this.groups = groups;
+        this.filters = filters;
+    }
+
+    public static SearchQuery parse(String text, TextAnalyzer analyzer) {
+        List<List<Clause>> groups = new ArrayList<>();
+        List<Clause> current = new ArrayList<>();
+        int i = 0;
+        int length = text == null ? 0 : text.length();
+        while (i < length) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            int end;
+            String part;
+            boolean quoted = c == '"';
+            if (quoted) {
+                end = text.indexOf('"', i + 1);
+                if (end < 0) {
+                    end = length;
+                }
+                part = text.substring(i + 1, end);
+                end = Math.min(end + 1, length);
+            } else {
+                end = i;
+                while (end < length && !Character.isWhitespace(text.charAt(end)) && text.charAt(end) != '"') {
+                    end++;
+                }
+                part = text.substring(i, end);
+            }
+            i = end;
+
+            if (!quoted && isAlternative(part)) {
+                if (!current.isEmpty()) {
+                    groups.add(List.copyOf(current));
+                    current.clear();
+                }
+                continue;
+            }
+            if (!quoted && isOperator(part)) {
+                continue;
+            }
+            Clause clause = toClause(part, analyzer);
+            if (clause != null) {
+                current.add(clause);
+            }
+        }
+        if (!current.isEmpty()) {
+            groups.add(List.copyOf(current));
+        }
+        return new SearchQuery(List.copyOf(groups));
+    }
+
+    private static boolean isAlternative(String word) {
+        return word.equals("OR") || word.equals("OU");
+    }
+
+    /** Mot-clé de la syntaxe (OR, OU, AND, ET) plutôt que mot recherché. */
+    static boolean isOperator(String word) {
+        return isAlternative(word) || word.equals("AND") || word.equals("ET");
+    }
+
+    private static Clause toClause(String text, TextAnalyzer analyzer) {
+        List<String> terms = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        analyzer.analyze(text, 0, (term, position) -> {
+            terms.add(term);
+            positions.add(position);
+        });
+        if (terms.isEmpty()) {
+            return null;
+        }
+        int first = positions.get(0);
+        int[] offsets = new int[positions.size()];
+        for (int k = 0; k < offsets.length; k++) {
+            offsets[k] = positions.get(k) - first;
+        }
+        return new Clause(terms.toArray(new String[0]), offsets);
+    }
+
+    /** Groupes alternatifs (OU), chacun étant une conjonction de clauses (ET). */
+    public List<List<Clause>> getGroups() {
+        return groups;
+    }
+
+    public boolean isEmpty() {
+        return groups.isEmpty();
+    }
+
+    /**
+     * Requête restreinte aux documents portant tous les mots-clés donnés (indexés tels quels
+     * par {@link InvertedIndex#index(int, String[], java.util.Collection)}).
+     * Sans texte, elle renvoie tous les documents portant les mots-clés.
+     */
+    public SearchQuery withFilters(Collection<String> keywords) {
+        if (keywords.isEmpty()) {
+            return this;
+        }
+        List<Clause> filterClauses = new ArrayList<>();
+        for (String keyword : keywords) {
+            filterClauses.add(new Clause(new String[] {keyword}, new int[] {0}));
+        }
+        List<List<Clause>> filtered = new ArrayList<>();
+        if (groups.isEmpty()) {
+            filtered.add(List.copyOf(filterClauses));
+        }
+        for (List<Clause> group : groups) {
+            List<Clause> combined = new ArrayList<>(group);
+            combined.addAll(filterClauses);
+            filtered.add(List.copyOf(combined));
+        }
+        Set<String> allFilters = new LinkedHashSet<>(filters);
+        allFilters.addAll(keywords);
+        return new SearchQuery(List.copyOf(filtered), Set.copyOf(allFilters));
+    }
+
+    /** Tous les termes distincts de la requête. */
+    public Set<String> terms() {
+        Set<String> terms = new LinkedHashSet<>();
+        for (List<Clause> group : groups) {
+            for (Clause clause : group) {
+                for (String term : clause.terms()) {
+                    if (!filters.contains(term)) {
+                        terms.add(term);
+                    }
+                }
+            }
+        }
+        return terms;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        for (List<Clause> group : groups) {
+            if (out.length() > 0) {
+                out.append(" OR ");
+            }
+            for (int k = 0; k < group.size(); k++) {
+                if (k > 0) {
+                    out.append(' ');
+                }
+                out.append(group.get(k));
+            }
+        }
+        return out.toString();
+    }
+}
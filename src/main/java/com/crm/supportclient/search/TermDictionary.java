@@ -0,0 +1,180 @@
+package com.crm.supportclient.search;
+
+import java.util.Arrays;
+
+/**
+ * Dictionnaire des termes de l'index, en trie, pour la recherche approchée.
+ * La recherche descend le trie en calculant une ligne de la matrice de
+ * Damerau-Levenshtein (transpositions adjacentes comprises) par caractère,
+ * et abandonne une branche dès que tous les coûts de la ligne dépassent la
+ * distance maximale : seule une petite partie du vocabulaire est visitée.
+ * Non thread-safe : protégé par le verrou de {@link InvertedIndex}.
+ */
+final class TermDictionary {
+
+    /** Reçoit chaque terme trouvé et sa distance au mot cherché. */
+    @FunctionalInterface
+    interface MatchConsumer {
+        void accept(String term, int distance);
+    }
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final class Node {
+        /** Triés, en correspondance avec {@code children}. */
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        /** Terme complet si un terme se termine ici. */
+        String term;
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node addChild(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insert = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            Node node = new Node();
+            newKeys[insert] = c;
+            newChildren[insert] = node;
+            keys = newKeys;
+            children = newChildren;
+            return node;
+        }
+
+        void removeChild(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index < 0) {
+                return;
+            }
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return term == null && keys.length == 0;
+        }
+    }
+
+    private final Node root = new Node();
+    private int size;
+
+    boolean add(String term) {
+        Node node = root;
+        for (int i = 0; i < term.length(); i++) {
+            node = node.addChild(term.charAt(i));
+        }
+        if (node.term != null) {
+            return false;
+        }
+        node.term = term;
+        size++;
+        return true;
+    }
+
+    boolean remove(String term) {
+        Node[] path = new Node[term.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < term.length(); i++) {
+            path[i + 1] = path[i].child(term.charAt(i));
+            if (path[i + 1] == null) {
+                return false;
+            }
+        }
+        Node node = path[term.length()];
+        if (node.term == null) {
+            return false;
+        }
+        node.term = null;
+        size--;
+        for (int depth = term.length(); depth > 0 && path[depth].isEmpty(); depth--) {
+            path[depth - 1].removeChild(term.charAt(depth - 1));
+        }
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Termes à au plus {@code maxDistance} modifications de {@code word} et partageant
+     * ses {@code prefixLength} premiers caractères (qui limitent fortement le parcours).
+     */
+    void search(String word, int maxDistance, int prefixLength, MatchConsumer consumer) {
+        int n = word.length();
+        // Une ligne par profondeur, réutilisées ; au-delà de n + maxDistance tout coût dépasse le seuil.
+        // Seule la bande |profondeur - j| <= maxDistance est calculée, le reste vaut "trop loin".
+        int[][] rows = new int[n + maxDistance + 2][n + 1];
+        for (int[] row : rows) {
+            Arrays.fill(row, maxDistance + 1);
+        }
+        for (int j = 0; j <= n; j++) {
+            rows[0][j] = j;
+        }
+        if (root.term != null && n <= maxDistance) {
+            consumer.accept(root.term, n);
+        }
+        walkChildren(root, '\0', 0, word, maxDistance, Math.min(prefixLength, n), rows, consumer);
+    }
+
+    private static void walkChildren(Node node, char c, int depth, String word, int maxDistance,
+                                     int prefixLength, int[][] rows, MatchConsumer consumer) {
+        if (depth < prefixLength) {
+            char next = word.charAt(depth);
+            Node child = node.child(next);
+            if (child != null) {
+                walk(child, next, c, depth + 1, word, maxDistance, prefixLength, rows, consumer);
+            }
+            return;
+        }
+        for (int k = 0; k < node.keys.length; k++) {
+            walk(node.children[k], node.keys[k], c, depth + 1, word, maxDistance, prefixLength, rows, consumer);
+        }
+    }
+
+    private static void walk(Node node, char c, char previous, int depth, String word, int maxDistance,
+                             int prefixLength, int[][] rows, MatchConsumer consumer) {
+        int n = word.length();
+        int[] above = rows[depth - 1];
+        int[] row = rows[depth];
+        row[0] = depth;
+        int best = depth;
+        int from = Math.max(1, depth - maxDistance);
+        int to = Math.min(n, depth + maxDistance);
+        for (int j = from; j <= to; j++) {
+            char expected = word.charAt(j - 1);
+            int cost = expected == c ? 0 : 1;
+            int value = Math.min(Math.min(above[j] + 1, row[j - 1] + 1), above[j - 1] + cost);
+            if (depth > 1 && j > 1 && expected == previous && word.charAt(j - 2) == c) {
+                value = Math.min(value, rows[depth - 2][j - 2] + 1);
+            }
+            row[j] = value;
+            best = Math.min(best, value);
+        }
+        if (node.term != null && row[n] <= maxDistance) {
+            consumer.accept(node.term, row[n]);
+        }
+        if (best > maxDistance || depth + 1 >= rows.length) {
+            return;
+        }
+        walkChildren(node, c, depth, word, maxDistance, prefixLength, rows, consumer);
+    }
+}
@@ -0,0 +1,121 @@
+package com.crm.supportclient.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Analyseur de texte français : découpe en mots, minuscules, suppression des accents
+ * ("réinitialiser" -> "reinitialiser") et des mots vides.
+ * Les mots vides consomment quand même une position, pour que les requêtes
+ * de phrase ("mot de passe") restent exactes.
+ */
+public final class TextAnalyzer {
+
+    /** Reçoit chaque terme retenu avec sa position dans le texte. */
+    @FunctionalInterface
+    public interface TokenConsumer {
+        void accept(String term, int position);
+    }
+
+    /** Variante recevant aussi l'intervalle [start, end[ du mot dans le texte d'origine. */
+    @FunctionalInterface
+    public interface OffsetConsumer {
+        void accept(String term, int position, int start, int end);
+    }
+
+    private static final Set<String> MOTS_VIDES_FR = Set.of(
+        "a", "au", "aux", "avec", "ce", "ces", "cet", "cette", "d", "dans", "de", "des", "du",
+        "elle", "elles", "en", "est", "et", "etre", "il", "ils", "j", "je", "l", "la", "le", "les",
+        "leur", "leurs", "lui", "m", "ma", "me", "mes", "mon", "n", "ne", "nos", "notre", "nous",
+        "on", "ou", "par", "pas", "pour", "qu", "que", "qui", "s", "sa", "se", "ses", "son", "sont",
+        "sur", "t", "ta", "te", "tes", "ton", "tu", "un", "une", "vos", "votre", "vous", "y"
+    );
+
+    public static final TextAnalyzer FRANCAIS = new TextAnalyzer(MOTS_VIDES_FR);
+
+    private final Set<String> stopWords;
+
+    public TextAnalyzer(Set<String> stopWords) {
+        this.stopWords = Set.copyOf(stopWords);
+    }
+
+    /**
+     * Analyse un texte en numérotant les positions à partir de {@code startPosition}.
+     *
+     * @return la position suivant le dernier mot
+     */
+    public int analyze(String text, int startPosition, TokenConsumer consumer) {
+        return analyze(text, startPosition, (term, position, start, end) -> consumer.accept(term, position));
+    }
+
+    /** Comme {@link #analyze(String, int, TokenConsumer)}, avec la position des mots dans le texte. */
+    public int analyze(String text, int startPosition, OffsetConsumer consumer) {
+        if (text == null) {
+            return startPosition;
+        }
+        int position = startPosition;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                String term = normalize(text, start, i);
+                if (!stopWords.contains(term)) {
+                    consumer.accept(term, position, start, i);
+                }
+                position++;
+            }
+        }
+        return position;
+    }
+
+    /** Termes retenus, dans l'ordre du texte. */
+    public List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        analyze(text, 0, (term, position) -> terms.add(term));
+        return terms;
+    }
+
+    public boolean isStopWord(String term) {
+        return stopWords.contains(term);
+    }
+
+    /** Minuscules + suppression des accents d'un mot. */
+    public String normalize(String word) {
+        return normalize(word, 0, word.length());
+    }
+
+    private static String normalize(String text, int start, int end) {
+        boolean ascii = true;
+        for (int i = start; i < end && ascii; i++) {
+            ascii = text.charAt(i) < 128;
+        }
+        String word = text.substring(start, end).toLowerCase();
+        if (ascii) {
+            return word;
+        }
+        String decomposed = Normalizer.normalize(word, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            switch (c) {
+                case 'œ' -> folded.append("oe");
+                case 'æ' -> folded.append("ae");
+                default -> {
+                    if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                        folded.append(c);
+                    }
+                }
+            }
+        }
+        return folded.toString();
+    }
+}
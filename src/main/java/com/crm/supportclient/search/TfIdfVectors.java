@@ -0,0 +1,267 @@
+package com.crm.supportclient.search;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Vecteurs TF-IDF des documents, comparés par similarité cosinus.
+ * Chaque document garde ses fréquences de termes ; les vecteurs denses (termes hachés
+ * sur {@code dimensions} composantes, normalisés L2) forment une matrice immuable publiée
+ * d'un bloc, car l'IDF de chaque terme dépend de tout le corpus. Après une modification,
+ * la matrice est reconstruite à la demande suivante : sur place jusqu'à
+ * {@link #INLINE_REBUILD_THRESHOLD} documents, sur un fil d'arrière-plan au-delà, les
+ * lecteurs gardant la précédente en attendant. Le vecteur du document demandé est, lui,
+ * toujours recalculé avec les fréquences courantes : un article ajouté ou modifié est
+ * comparé tout de suite, avec son nouveau texte.
+ * Au-delà de {@link #PARALLEL_THRESHOLD} documents, le top-k est réparti sur les coeurs.
+ */
+public class TfIdfVectors {
+
+    /** Nombre de documents à partir duquel la comparaison est parallélisée. */
+    static final int PARALLEL_THRESHOLD = 4096;
+    /** Taille de corpus jusqu'à laquelle la matrice est reconstruite par l'appelant. */
+    static final int INLINE_REBUILD_THRESHOLD = 4096;
+    private static final int CHUNK_SIZE = 1024;
+
+    /** Fil de reconstruction partagé ; les reconstructions d'une même instance ne se chevauchent pas. */
+    private static final ExecutorService REBUILDER = Executors.newSingleThreadExecutor(
+        Thread.ofPlatform().name("tfidf-rebuild").daemon(true).factory());
+
+    /** Termes distincts d'un document et leur fréquence pondérée par champ. */
+    private record TermCounts(String[] terms, float[] counts) {
+    }
+
+    /**
+     * Vecteurs de tous les documents, ligne par ligne dans un tableau plat, tels qu'ils
+     * étaient à la modification numéro {@code version}.
+     */
+    private record Matrix(long version, int[] docIds, Map<Integer, Integer> rows, float[] data) {
+    }
+
+    /** Copie de l'état du corpus, prise sous verrou, à vectoriser hors verrou. */
+    private record Corpus(long version, int[] docIds, TermCounts[] documents, Map<String, Integer> documentFrequency) {
+    }
+
+    private final TextAnalyzer analyzer;
+    private final VectorKernel kernel;
+    private final int dimensions;
+    private final double[] fieldWeights;
+    private final Map<Integer, TermCounts> documents = new HashMap<>();
+    private final Map<String, Integer> documentFrequency = new HashMap<>();
+    /** Nombre de modifications ; écrit sous {@code this}. */
+    private volatile long modifications;
+    /** Dernière matrice publiée, éventuellement en retard sur {@link #modifications}. */
+    private volatile Matrix matrix = new Matrix(0, new int[0], Map.of(), new float[0]);
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    public TfIdfVectors(TextAnalyzer analyzer, VectorKernel kernel, int dimensions, double... fieldWeights) {
+        if (dimensions < 1) {
+            throw new IllegalArgumentException("dimensions doit etre >= 1: " + dimensions);
+        }
+        this.analyzer = analyzer;
+        this.kernel = kernel;
+        this.dimensions = dimensions;
+        this.fieldWeights = fieldWeights.clone();
+    }
+
+    /** Ajoute ou remplace un document. L'analyse du texte se fait hors verrou. */
+    public void put(int docId, String... fields) {
+        Map<String, Float> counts = new HashMap<>();
+        for (int f = 0; f < fields.length; f++) {
+            float weight = (float) (f < fieldWeights.length ? fieldWeights[f] : 1.0);
+            analyzer.analyze(fields[f], 0, (term, position) -> counts.merge(term, weight, Float::sum));
+        }
+        String[] terms = counts.keySet().toArray(new String[0]);
+        float[] values = new float[terms.length];
+        for (int t = 0; t < terms.length; t++) {
+            values[t] = counts.get(terms[t]);
+        }
+        synchronized (this) {
+            removeLocked(docId);
+            documents.put(docId, new TermCounts(terms, values));
+            for (String term : terms) {
+                documentFrequency.merge(term, 1, Integer::sum);
+            }
+            modifications++;
+        }
+    }
+
+    public synchronized void remove(int docId) {
+        if (removeLocked(docId)) {
+            modifications++;
+        }
+    }
+
+    private boolean removeLocked(int docId) {
+        TermCounts previous = documents.remove(docId);
+        if (previous == null) {
+            return false;
+        }
+        for (String term : previous.terms()) {
+            documentFrequency.computeIfPresent(term, (t, df) -> df == 1 ? null : df - 1);
+        }
+        return true;
+    }
+
+    public String getKernelName() {
+        return kernel.name();
+    }
+
+    /**
+     * Version des vecteurs servis par {@link #similar} : numéro de la modification reflétée
+     * par la matrice publiée. Déclenche la reconstruction si elle est en retard.
+     */
+    public long version() {
+        return current().version();
+    }
+
+    /** Les {@code limit} documents les plus proches de {@code docId} (lui exclu), similarité > 0. */
+    public List<InvertedIndex.ScoredDoc> similar(int docId, int limit) {
+        if (limit < 1) {
+            return List.of();
+        }
+        float[] query = vector(docId);
+        if (query == null) {
+            return List.of();
+        }
+        Matrix current = current();
+        int count = current.docIds().length;
+        if (count < PARALLEL_THRESHOLD) {
+            return collect(current, query, docId, 0, count, limit).sorted();
+        }
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        return IntStream.range(0, chunks).parallel()
+            .mapToObj(chunk -> collect(current, query, docId, chunk * CHUNK_SIZE,
+                Math.min(count, (chunk + 1) * CHUNK_SIZE), limit))
+            .reduce(TopDocsCollector::merge)
+            .orElseThrow()
+            .sorted();
+    }
+
+    private TopDocsCollector collect(Matrix current, float[] query, int docId, int from, int to, int limit) {
+        TopDocsCollector collector = new TopDocsCollector(limit);
+        float[] data = current.data();
+        int[] docIds = current.docIds();
+        for (int other = from; other < to; other++) {
+            if (docIds[other] == docId) {
+                continue;
+            }
+            float cosine = kernel.dot(query, 0, data, other * dimensions, dimensions);
+            if (cosine > 0f) {
+                collector.offer(docIds[other], cosine);
+            }
+        }
+        return collector;
+    }
+
+    /** Vecteur du document avec l'IDF courant, ou null s'il n'est pas indexé. */
+    private float[] vector(int docId) {
+        float[] vector = new float[dimensions];
+        synchronized (this) {
+            TermCounts counts = documents.get(docId);
+            if (counts == null) {
+                return null;
+            }
+            fill(vector, 0, counts, documents.size(), documentFrequency);
+        }
+        normalize(vector, 0);
+        return vector;
+    }
+
+    /**
+     * Matrice à jour si elle peut l'être sans faire attendre : petit corpus reconstruit
+     * sur place, grand corpus reconstruit en arrière-plan pendant qu'on sert la précédente.
+     */
+    private Matrix current() {
+        Matrix current = matrix;
+        if (current.version() == modifications) {
+            return current;
+        }
+        Corpus corpus;
+        synchronized (this) {
+            if (documents.size() > INLINE_REBUILD_THRESHOLD) {
+                corpus = null;
+            } else {
+                corpus = snapshot();
+            }
+        }
+        if (corpus == null) {
+            if (rebuildScheduled.compareAndSet(false, true)) {
+                REBUILDER.execute(this::rebuild);
+            }
+            return current;
+        }
+        return publish(build(corpus));
+    }
+
+    private void rebuild() {
+        rebuildScheduled.set(false);
+        Corpus corpus;
+        synchronized (this) {
+            if (matrix.version() == modifications) {
+                return;
+            }
+            corpus = snapshot();
+        }
+        publish(build(corpus));
+    }
+
+    /** Garde la plus récente des deux matrices (deux reconstructions peuvent se croiser). */
+    private synchronized Matrix publish(Matrix built) {
+        if (built.version() > matrix.version()) {
+            matrix = built;
+        }
+        return matrix;
+    }
+
+    /** Copie des références seulement : les {@link TermCounts} ne sont jamais modifiés. */
+    private Corpus snapshot() {
+        int count = documents.size();
+        int[] docIds = new int[count];
+        TermCounts[] counts = new TermCounts[count];
+        int row = 0;
+        for (Map.Entry<Integer, TermCounts> entry : documents.entrySet()) {
+            docIds[row] = entry.getKey();
+            counts[row++] = entry.getValue();
+        }
+        return new Corpus(modifications, docIds, counts, new HashMap<>(documentFrequency));
+    }
+
+    private Matrix build(Corpus corpus) {
+        int count = corpus.docIds().length;
+        Map<Integer, Integer> rows = new HashMap<>(count * 2);
+        float[] data = new float[count * dimensions];
+        for (int row = 0; row < count; row++) {
+            rows.put(corpus.docIds()[row], row);
+            fill(data, row * dimensions, corpus.documents()[row], count, corpus.documentFrequency());
+            normalize(data, row * dimensions);
+        }
+        return new Matrix(corpus.version(), corpus.docIds(), rows, data);
+    }
+
+    /** TF sous-linéaire (1 + ln tf) x IDF lissé, haché avec signe pour compenser les collisions. */
+    private void fill(float[] data, int offset, TermCounts counts, int count, Map<String, Integer> frequencies) {
+        for (int t = 0; t < counts.terms().length; t++) {
+            String term = counts.terms()[t];
+            double idf = Math.log((1.0 + count) / (1.0 + frequencies.get(term))) + 1.0;
+            double weight = (1.0 + Math.log(Math.max(1f, counts.counts()[t]))) * idf;
+            int hash = term.hashCode() * 0x9E3779B9;
+            int index = (hash & Integer.MAX_VALUE) % dimensions;
+            data[offset + index] += (float) (hash < 0 ? -weight : weight);
+        }
+    }
+
+    private void normalize(float[] data, int offset) {
+        double norm = Math.sqrt(kernel.dot(data, offset, data, offset, dimensions));
+        if (norm > 0) {
+            for (int d = 0; d < dimensions; d++) {
+                data[offset + d] /= (float) norm;
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.crm.supportclient.search;
+
+import com.crm.supportclient.model.StatutTicket;
+import com.crm.supportclient.model.Ticket;
+import com.crm.supportclient.model.TicketSnapshot;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Index des tickets par statut, priorité, agent assigné et jour de création, un
+ * {@link RoaringBitmap} d'identifiants par valeur. Une requête de tableau de bord
+ * ("EN_COURS et Haute et agent X") fait l'union des valeurs demandées pour chaque
+ * critère puis l'intersection des critères, sans jamais parcourir les tickets.
+ * Appelé de façon synchrone à chaque changement d'un ticket ({@link #update}), l'index le
+ * déplace d'un bitmap à l'autre dès la transition ou le changement de priorité.
+ */
+public class TicketBitmapIndex {
+
+    /**
+     * Critères d'une requête : valeurs acceptées par champ (OU), champs combinés par ET.
+     * Un ensemble vide ou une date null ne filtre pas ; les bornes de dates sont incluses.
+     */
+    public record Requete(Set<StatutTicket> statuts, Set<String> priorites, Set<UUID> agents,
+                          LocalDate depuis, LocalDate jusqua) {
+
+        public static final Requete TOUT = new Requete(Set.of(), Set.of(), Set.of(), null, null);
+
+        public Requete {
+            statuts = Set.copyOf(statuts);
+            priorites = Set.copyOf(priorites);
+            agents = Set.copyOf(agents);
+        }
+    }
+
+    /** Valeurs sous lesquelles un ticket est actuellement indexé. */
+    private record Valeurs(StatutTicket statut, String priorite, UUID agent, LocalDate jour) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RoaringBitmap tous = new RoaringBitmap();
+    private final Map<StatutTicket, RoaringBitmap> parStatut = new EnumMap<>(StatutTicket.class);
+    private final Map<String, RoaringBitmap> parPriorite = new HashMap<>();
+    private final Map<UUID, RoaringBitmap> parAgent = new HashMap<>();
+    private final NavigableMap<LocalDate, RoaringBitmap> parJour = new TreeMap<>();
+    private final Map<Integer, Valeurs> indexes = new HashMap<>();
+
+    /**
+     * Indexe (ou déplace) le ticket selon son état courant. L'état est lu sous le verrou
+     * pour que deux réindexations concurrentes ne laissent pas la plus ancienne en dernier.
+     */
+    public void put(Ticket ticket) {
+        lock.writeLock().lock();
+        try {
+            if (ticket.estRetire()) {
+                remove(ticket.getId());
+                return;
+            }
+            TicketSnapshot etat = ticket.getSnapshot();
+            Valeurs valeurs = new Valeurs(etat.statut(),
+                ticket.getPriorite() != null ? normaliser(ticket.getPriorite()) : null,
+                etat.assignedSupportId(),
+                ticket.getDateCreation() != null ? ticket.getDateCreation().toLocalDate() : null);
+            Valeurs precedentes = indexes.put(ticket.getId(), valeurs);
+            if (valeurs.equals(precedentes)) {
+                return;
+            }
+            if (precedentes != null) {
+                retirer(ticket.getId(), precedentes);
+            }
+            int id = ticket.getId();
+            tous.add(id);
+            parStatut.computeIfAbsent(valeurs.statut(), s -> new RoaringBitmap()).add(id);
+            ajouter(parPriorite, valeurs.priorite(), id);
+            ajouter(parAgent, valeurs.agent(), id);
+            ajouter(parJour, valeurs.jour(), id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(int ticketId) {
+        lock.writeLock().lock();
+        try {
+            Valeurs precedentes = indexes.remove(ticketId);
+            if (precedentes == null) {
+                return false;
+            }
+            retirer(ticketId, precedentes);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return indexes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Identifiants des tickets satisfaisant la requête. Les critères sont intersectés du
+     * plus sélectif au moins sélectif, et le calcul s'arrête dès que le résultat est vide.
+     */
+    public RoaringBitmap query(Requete requete) {
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> criteres = new ArrayList<>(4);
+            if (!requete.statuts().isEmpty()) {
+                criteres.add(union(requete.statuts(), parStatut::get));
+            }
+            if (!requete.priorites().isEmpty()) {
+                criteres.add(union(requete.priorites(), p -> parPriorite.get(normaliser(p))));
+            }
+            if (!requete.agents().isEmpty()) {
+                criteres.add(union(requete.agents(), parAgent::get));
+            }
+            if (requete.depuis() != null || requete.jusqua() != null) {
+                criteres.add(union(jours(requete.depuis(), requete.jusqua()).values(), Function.identity()));
+            }
+            if (criteres.isEmpty()) {
+                return tous.copy();
+            }
+            criteres.sort(Comparator.comparingInt(RoaringBitmap::cardinality));
+            RoaringBitmap resultat = criteres.get(0);
+            for (int i = 1; i < criteres.size() && !resultat.isEmpty(); i++) {
+                resultat = RoaringBitmap.and(resultat, criteres.get(i));
+            }
+            return resultat;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Répartition par statut d'un résultat de {@link #query}, statuts absents compris (0). */
+    public Map<StatutTicket, Integer> compterParStatut(RoaringBitmap selection) {
+        Map<StatutTicket, Integer> comptes = new EnumMap<>(StatutTicket.class);
+        lock.readLock().lock();
+        try {
+            for (StatutTicket statut : StatutTicket.values()) {
+                RoaringBitmap bitmap = parStatut.get(statut);
+                comptes.put(statut, bitmap == null ? 0 : RoaringBitmap.and(selection, bitmap).cardinality());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return comptes;
+    }
+
+    /** Déplace le ticket après un changement (création, transition, priorité). */
+    public void update(Ticket ticket) {
+        put(ticket);
+    }
+
+    private NavigableMap<LocalDate, RoaringBitmap> jours(LocalDate depuis, LocalDate jusqua) {
+        if (depuis != null && jusqua != null) {
+            return depuis.isAfter(jusqua) ? new TreeMap<>() : parJour.subMap(depuis, true, jusqua, true);
+        }
+        return depuis != null ? parJour.tailMap(depuis, true) : parJour.headMap(jusqua, true);
+    }
+
+    /** Union des bitmaps des valeurs demandées ; toujours une nouvelle instance. */
+    private static <K> RoaringBitmap union(Collection<K> valeurs, Function<K, RoaringBitmap> bitmaps) {
+        RoaringBitmap resultat = new RoaringBitmap();
+        for (K valeur : valeurs) {
+            RoaringBitmap bitmap = bitmaps.apply(valeur);
+            if (bitmap != null) {
+                resultat = RoaringBitmap.or(resultat, bitmap);
+            }
+        }
+        return resultat;
+    }
+
+    private void retirer(int id, Valeurs valeurs) {
+        tous.remove(id);
+        retirer(parStatut, valeurs.statut(), id);
+        retirer(parPriorite, valeurs.priorite(), id);
+        retirer(parAgent, valeurs.agent(), id);
+        retirer(parJour, valeurs.jour(), id);
+    }
+
+    private static <K> void ajouter(Map<K, RoaringBitmap> bitmaps, K valeur, int id) {
+        if (valeur != null) {
+            bitmaps.computeIfAbsent(valeur, v -> new RoaringBitmap()).add(id);
+        }
+    }
+
+    /** Retire l'identifiant, et la valeur elle-même quand plus aucun ticket ne la porte. */
+    private static <K> void retirer(Map<K, RoaringBitmap> bitmaps, K valeur, int id) {
+        RoaringBitmap bitmap = valeur != null ? bitmaps.get(valeur) : null;
+        if (bitmap != null) {
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(valeur);
+            }
+        }
+    }
+
+    private static String normaliser(String priorite) {
+        return Objects.requireNonNull(priorite).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,125 @@
+package com.crm.supportclient.search;
+
+import com.crm.supportclient.model.StatutTicket;
+import com.crm.supportclient.model.Ticket;
+import com.crm.supportclient.model.TicketSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index plein texte des tickets (titre, description, solution) avec des mots-clés
+ * de filtre pour le statut, la priorité et l'agent assigné. Les filtres sont des
+ * intersections de listes de documents, comme les termes : aucune recherche ne
+ * parcourt tous les tickets. Appelé de façon synchrone à chaque changement d'un ticket
+ * ({@link #update}) ; seul un texte modifié (titre, description, solution) est réanalysé,
+ * un changement de statut, de priorité ou d'agent ne déplace que ses mots-clés.
+ */
+public class TicketIndex {
+
+    /** Un mot du titre pèse deux fois plus qu'un mot de la description ou de la solution. */
+    private static final double POIDS_TITRE = 2.0;
+    private static final double POIDS_DESCRIPTION = 1.0;
+    private static final double POIDS_SOLUTION = 1.0;
+
+    /** Filtres facultatifs d'une recherche de tickets (null = pas de filtre). */
+    public record Filtres(StatutTicket statut, String priorite, UUID agentId) {
+
+        public static final Filtres AUCUN = new Filtres(null, null, null);
+
+        List<String> keywords() {
+            List<String> keywords = new ArrayList<>(3);
+            if (statut != null) {
+                keywords.add(statutKeyword(statut));
+            }
+            if (priorite != null) {
+                keywords.add(prioriteKeyword(priorite));
+            }
+            if (agentId != null) {
+                keywords.add(agentKeyword(agentId));
+            }
+            return keywords;
+        }
+    }
+
+    private final InvertedIndex index;
+    /** Texte indexé de chaque ticket (titre, description, solution). */
+    private final Map<Integer, String[]> textes = new ConcurrentHashMap<>();
+
+    public TicketIndex() {
+        this(TextAnalyzer.FRANCAIS);
+    }
+
+    public TicketIndex(TextAnalyzer analyzer) {
+        this.index = new InvertedIndex(analyzer, POIDS_TITRE, POIDS_DESCRIPTION, POIDS_SOLUTION);
+    }
+
+    /**
+     * Indexe (ou réindexe) le ticket dans son état courant. À appeler sous le verrou du
+     * ticket, pour qu'une réindexation concurrente plus ancienne n'écrase pas la plus récente.
+     */
+    public void put(Ticket ticket) {
+        if (ticket.estRetire()) {
+            remove(ticket.getId());
+            return;
+        }
+        TicketSnapshot etat = ticket.getSnapshot();
+        List<String> keywords = new ArrayList<>(3);
+        keywords.add(statutKeyword(etat.statut()));
+        if (ticket.getPriorite() != null) {
+            keywords.add(prioriteKeyword(ticket.getPriorite()));
+        }
+        if (etat.assignedSupportId() != null) {
+            keywords.add(agentKeyword(etat.assignedSupportId()));
+        }
+        String[] texte = {ticket.getTitre(), ticket.getDescription(), etat.solution()};
+        if (Arrays.equals(texte, textes.get(ticket.getId())) && index.updateKeywords(ticket.getId(), keywords)) {
+            return;
+        }
+        index.index(ticket.getId(), texte, keywords);
+        textes.put(ticket.getId(), texte);
+    }
+
+    public boolean remove(int ticketId) {
+        textes.remove(ticketId);
+        return index.remove(ticketId);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Tickets satisfaisant la requête (syntaxe de {@link SearchQuery}) et les filtres,
+     * classés par BM25. Une requête vide renvoie tous les tickets filtrés.
+     */
+    public InvertedIndex.TopDocs search(String query, Filtres filtres, int offset, int limit) {
+        SearchQuery parsed = SearchQuery.parse(query, index.getAnalyzer()).withFilters(filtres.keywords());
+        if (parsed.isEmpty()) {
+            return new InvertedIndex.TopDocs(0, List.of());
+        }
+        return index.search(parsed, offset, limit);
+    }
+
+    /** Réindexe le ticket après un changement (création, transition, modification). */
+    public void update(Ticket ticket) {
+        put(ticket);
+    }
+
+    static String statutKeyword(StatutTicket statut) {
+        return "statut:" + statut.name();
+    }
+
+    static String prioriteKeyword(String priorite) {
+        return "priorite:" + priorite.toLowerCase(Locale.ROOT);
+    }
+
+    static String agentKeyword(UUID agentId) {
+        return "agent:" + agentId;
+    }
+}
@@ -0,0 +1,147 @@
+package com.crm.supportclient.search;
+
+import com.crm.supportclient.model.Ticket;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Ordres de parcours des tickets (identifiant, date de création, priorité), tenus à jour
+ * dans des skip lists. Une page reprend juste après la dernière clé renvoyée : elle coûte
+ * la taille de la page, sans tri par requête, et reste stable si des tickets sont créés
+ * entre deux pages (aucun ticket sauté ni répété). Appelé de façon synchrone à chaque
+ * changement d'un ticket ({@link #update}) : un changement de priorité le déplace aussitôt.
+ */
+public class TicketSortIndex {
+
+    public enum Tri { ID, DATE, PRIORITE }
+
+    /** Position d'un ticket dans un ordre : valeur triée, puis identifiant pour départager. */
+    public record Cle(long valeur, int id) implements Comparable<Cle> {
+        @Override
+        public int compareTo(Cle other) {
+            int cmp = Long.compare(valeur, other.valeur);
+            return cmp != 0 ? cmp : Integer.compare(id, other.id);
+        }
+    }
+
+    /** Identifiants de la page, et clé à partir de laquelle reprendre (null : fin du parcours). */
+    public record Page(List<Integer> ticketIds, Cle suivante) {
+    }
+
+    private final Map<Tri, ConcurrentSkipListSet<Cle>> ordres = new EnumMap<>(Tri.class);
+    /** Clés courantes d'un ticket dans les ordres qui peuvent changer après la création. */
+    private record Cles(Cle date, Cle priorite) {
+    }
+
+    private final Map<Integer, Cles> cles = new ConcurrentHashMap<>();
+
+    public TicketSortIndex() {
+        for (Tri tri : Tri.values()) {
+            ordres.put(tri, new ConcurrentSkipListSet<>());
+        }
+    }
+
+    /**
+     * Ajoute le ticket, ou le déplace si sa priorité (ou sa date) a changé. À appeler sous
+     * le verrou du ticket : deux mises à jour d'un même ticket ne se croisent pas.
+     */
+    public void put(Ticket ticket) {
+        if (ticket.estRetire()) {
+            remove(ticket);
+            return;
+        }
+        int id = ticket.getId();
+        Cles courantes = new Cles(new Cle(cleDate(ticket.getDateCreation()), id),
+            new Cle(rangPriorite(ticket.getPriorite()), id));
+        Cles precedentes = cles.put(id, courantes);
+        if (precedentes == null) {
+            ordres.get(Tri.ID).add(new Cle(id, id));
+        }
+        deplacer(Tri.DATE, precedentes == null ? null : precedentes.date(), courantes.date());
+        deplacer(Tri.PRIORITE, precedentes == null ? null : precedentes.priorite(), courantes.priorite());
+    }
+
+    private void deplacer(Tri tri, Cle precedente, Cle courante) {
+        if (courante.equals(precedente)) {
+            return;
+        }
+        // Ajout avant retrait : une page lue entre les deux voit le ticket, au pire deux fois
+        ordres.get(tri).add(courante);
+        if (precedente != null) {
+            ordres.get(tri).remove(precedente);
+        }
+    }
+
+    /** Retire le ticket de tous les ordres. */
+    public boolean remove(Ticket ticket) {
+        int id = ticket.getId();
+        Cles precedentes = cles.remove(id);
+        if (precedentes == null) {
+            return false;
+        }
+        ordres.get(Tri.ID).remove(new Cle(id, id));
+        ordres.get(Tri.DATE).remove(precedentes.date());
+        ordres.get(Tri.PRIORITE).remove(precedentes.priorite());
+        return true;
+    }
+
+    public int size() {
+        return cles.size();
+    }
+
+    /**
+     * Jusqu'à {@code limit} tickets dans l'ordre demandé, strictement après {@code apres}
+     * (null : depuis le début). Lecture sans verrou.
+     */
+    public Page page(Tri tri, boolean descendant, Cle apres, int limit) {
+        NavigableSet<Cle> ordre = ordres.get(tri);
+        if (descendant) {
+            ordre = ordre.descendingSet();
+        }
+        if (apres != null) {
+            ordre = ordre.tailSet(apres, false);
+        }
+        List<Integer> ids = new ArrayList<>(Math.min(limit, 1024));
+        Cle derniere = null;
+        Iterator<Cle> it = ordre.iterator();
+        while (ids.size() < limit && it.hasNext()) {
+            derniere = it.next();
+            ids.add(derniere.id());
+        }
+        return new Page(ids, it.hasNext() ? derniere : null);
+    }
+
+    /** Suit les changements de priorité et de date (création, modification). */
+    public void update(Ticket ticket) {
+        put(ticket);
+    }
+
+    /** Rang d'urgence : Haute (0), Moyenne, Basse, puis toute autre valeur. */
+    static long rangPriorite(String priorite) {
+        if (priorite == null) {
+            return 3;
+        }
+        return switch (priorite.toLowerCase(Locale.ROOT)) {
+            case "haute" -> 0;
+            case "moyenne" -> 1;
+            case "basse" -> 2;
+            default -> 3;
+        };
+    }
+
+    /** Nanosecondes depuis l'époque (heure locale), Long.MIN_VALUE si inconnue. */
+    static long cleDate(LocalDateTime date) {
+        return date == null ? Long.MIN_VALUE
+            : date.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + date.getNano();
+    }
+}
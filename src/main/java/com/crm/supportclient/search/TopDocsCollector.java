@@ -0,0 +1,53 @@
+package com.crm.supportclient.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Garde les {@code capacity} meilleurs documents vus, dans un tas min borné :
+ * la racine est le moins bon des meilleurs, évincé dès qu'on trouve mieux.
+ * Non thread-safe : un collecteur par thread, puis {@link #merge}.
+ */
+final class TopDocsCollector {
+
+    /** Meilleur score d'abord, puis identifiant croissant. */
+    static final Comparator<InvertedIndex.ScoredDoc> BEST_FIRST = Comparator
+        .comparingDouble(InvertedIndex.ScoredDoc::score).reversed()
+        .thenComparingInt(InvertedIndex.ScoredDoc::docId);
+
+    private final int capacity;
+    private final PriorityQueue<InvertedIndex.ScoredDoc> heap;
+
+    TopDocsCollector(int capacity) {
+        this.capacity = capacity;
+        this.heap = new PriorityQueue<>(Math.max(1, capacity), BEST_FIRST.reversed());
+    }
+
+    void offer(int docId, double score) {
+        if (heap.size() < capacity) {
+            heap.add(new InvertedIndex.ScoredDoc(docId, score));
+        } else if (capacity > 0) {
+            InvertedIndex.ScoredDoc worst = heap.peek();
+            if (score > worst.score() || (score == worst.score() && docId < worst.docId())) {
+                heap.poll();
+                heap.add(new InvertedIndex.ScoredDoc(docId, score));
+            }
+        }
+    }
+
+    TopDocsCollector merge(TopDocsCollector other) {
+        for (InvertedIndex.ScoredDoc doc : other.heap) {
+            offer(doc.docId(), doc.score());
+        }
+        return this;
+    }
+
+    /** Documents retenus, du meilleur au moins bon. */
+    List<InvertedIndex.ScoredDoc> sorted() {
+        List<InvertedIndex.ScoredDoc> best = new ArrayList<>(heap);
+        best.sort(BEST_FIRST);
+        return best;
+    }
+}
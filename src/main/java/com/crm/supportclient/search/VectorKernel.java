@@ -0,0 +1,49 @@
+package com.crm.supportclient.search;
+
+/**
+ * Produit scalaire de deux vecteurs denses stockés dans des tableaux plats.
+ * {@link #best()} choisit l'implémentation SIMD (API Vector incubée, compilée par le profil
+ * Maven {@code simd} depuis {@code src/simd/java}) si elle est présente et que le module
+ * {@code jdk.incubator.vector} est chargé ({@code --add-modules jdk.incubator.vector}),
+ * sinon la boucle scalaire.
+ */
+public interface VectorKernel {
+
+    /** Boucle scalaire, toujours disponible. */
+    VectorKernel SCALAIRE = new VectorKernel() {
+        @Override
+        public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+            float sum = 0f;
+            for (int i = 0; i < length; i++) {
+                sum += a[aOffset + i] * b[bOffset + i];
+            }
+            return sum;
+        }
+
+        @Override
+        public String name() {
+            return "scalar";
+        }
+    };
+
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    String name();
+
+    /**
+     * Noyau SIMD si le module est présent et que {@code crm.search.simd} ne vaut pas false,
+     * noyau scalaire sinon.
+     */
+    static VectorKernel best() {
+        if (!Boolean.parseBoolean(System.getProperty("crm.search.simd", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return SCALAIRE;
+        }
+        try {
+            return (VectorKernel) Class.forName("com.crm.supportclient.search.SimdVectorKernel")
+                .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return SCALAIRE;
+        }
+    }
+}
@@ -1,69 +1,271 @@
 package com.crm.supportclient.service;
 
 import com.crm.supportclient.model.ArticleBaseConnaissance;
+import com.crm.supportclient.model.StatutTicket;
 import com.crm.supportclient.model.Ticket;
+import com.crm.supportclient.model.TicketChangeLog;
+import com.crm.supportclient.repository.InMemoryTicketRepository;
+import com.crm.supportclient.repository.TicketRepository;
+import com.crm.supportclient.search.ArticleIndex;
+import com.crm.supportclient.search.ClientTicketIndex;
+import com.crm.supportclient.search.DuplicateTicketDetector;
+import com.crm.supportclient.search.TextAnalyzer;
+import com.crm.supportclient.search.TicketBitmapIndex;
+import com.crm.supportclient.search.TicketIndex;
+import com.crm.supportclient.search.TicketSortIndex;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /** Portail client - Gestion des tickets et base de connaissances. */
 public class PortailClient {
     
-    private final Map<Integer, Ticket> ticketsByClient;
-    private final List<ArticleBaseConnaissance> baseConnaissance;
+    /** Similarité minimale d'un doublon signalé, par défaut. */
+    public static final double SIMILARITE_DOUBLON = 0.5;
+    /** Nombre de doublons signalés à la création d'un ticket. */
+    private static final int MAX_DOUBLONS = 5;
+
+    private final TicketRepository ticketRepository;
+    private final ArticleIndex baseConnaissance;
+    private final DuplicateTicketDetector doublons;
+    private final TicketIndex indexTickets = new TicketIndex();
+    private final TicketBitmapIndex filtresTickets = new TicketBitmapIndex();
+    private final ClientTicketIndex ticketsParClient = new ClientTicketIndex();
+    private final TicketSortIndex triTickets = new TicketSortIndex();
+    /** Similarité à partir de laquelle un doublon est rattaché à son parent (0 = jamais). */
+    private volatile double seuilLiaisonDoublon;
 
     public PortailClient() {
-        this.ticketsByClient = new HashMap<>();
-        this.baseConnaissance = new ArrayList<>();
+        this(new InMemoryTicketRepository());
+    }
+
+    public PortailClient(TicketRepository ticketRepository) {
+        this(ticketRepository, new DuplicateTicketDetector(TextAnalyzer.FRANCAIS, SIMILARITE_DOUBLON));
+    }
+
+    public PortailClient(TicketRepository ticketRepository, DuplicateTicketDetector doublons) {
+        this.ticketRepository = ticketRepository;
+        this.baseConnaissance = new ArticleIndex();
+        this.doublons = doublons;
     }
 
     public List<ArticleBaseConnaissance> consulterBaseConnaissance() {
         System.out.println("[KB] Consultation de la base de connaissances...");
         System.out.println("   " + baseConnaissance.size() + " article(s) trouve(s)");
-        return new ArrayList<>(baseConnaissance);
+        return new ArrayList<>(baseConnaissance.values());
     }
 
     public List<ArticleBaseConnaissance> rechercherArticles(String motCle) {
         System.out.println("[SEARCH] Recherche d'articles contenant: " + motCle);
         
-        List<ArticleBaseConnaissance> resultats = baseConnaissance.stream()
-            .filter(article -> 
-                article.getTitre().toLowerCase().contains(motCle.toLowerCase()) ||
-                article.getContenu().toLowerCase().contains(motCle.toLowerCase()))
-            .toList();
+        // Index inversé : insensible à la casse et aux accents, ET implicite, OR, "phrase"
+        List<ArticleBaseConnaissance> resultats = baseConnaissance.search(motCle);
         
         System.out.println("   " + resultats.size() + " résultat(s) trouvé(s)");
         return resultats;
     }
 
+    /**
+     * Articles susceptibles de résoudre le problème avant la création du ticket.
+     * Appelé à chaque frappe du formulaire : pas de trace console, temps de calcul borné.
+     */
+    public ArticleIndex.TicketSuggestions suggererArticles(String titre, String description,
+                                                           int limite, long budgetNanos) {
+        return baseConnaissance.suggestForTicket(titre, description, limite, budgetNanos);
+    }
+
+    /** Tickets du client, du plus récent au plus ancien. */
     public List<Ticket> consulterTickets(int clientId) {
         System.out.println("[TICKETS] Consultation des tickets du client #" + clientId);
         
-        List<Ticket> tickets = ticketsByClient.values().stream()
-            .filter(ticket -> ticket.getId() == clientId) // Simplification
-            .toList();
+        List<Ticket> tickets = consulterTickets(clientId, 0, Integer.MAX_VALUE);
         
         System.out.println("   " + tickets.size() + " ticket(s) trouvé(s)");
-        return new ArrayList<>(tickets);
+        return tickets;
+    }
+
+    /** Une page des tickets du client, du plus récent au plus ancien. */
+    public List<Ticket> consulterTickets(int clientId, int offset, int limite) {
+        return tickets(ticketsParClient.page(clientId, null, null, offset, limite));
     }
 
-    public void ajouterTicket(int clientId, Ticket ticket) {
-        ticketsByClient.put(ticket.getId(), ticket);
+    /** Page des tickets du client créés entre deux dates (incluses, null = sans borne). */
+    public ClientTicketIndex.Page pageTickets(int clientId, LocalDate depuis, LocalDate jusqua,
+                                              int offset, int limite) {
+        return ticketsParClient.page(clientId, depuis, jusqua, offset, limite);
+    }
+
+    public Map<StatutTicket, Integer> compterTicketsParStatut(int clientId) {
+        return ticketsParClient.compterParStatut(clientId);
+    }
+
+    /** Résout une page d'identifiants, dans l'ordre de la page. */
+    private List<Ticket> tickets(ClientTicketIndex.Page page) {
+        List<Ticket> tickets = new ArrayList<>(page.ticketIds().length);
+        for (int ticketId : page.ticketIds()) {
+            Ticket ticket = ticketRepository.findById(ticketId);
+            if (ticket != null) {
+                tickets.add(ticket);
+            }
+        }
+        return tickets;
+    }
+
+    /**
+     * Enregistre un ticket créé et renvoie les tickets ouverts qui lui ressemblent.
+     * Si le plus proche dépasse le seuil de liaison, le ticket est rattaché à son parent
+     * (ou au parent de celui-ci, pour que chaque incident n'ait qu'un parent).
+     */
+    public List<DuplicateTicketDetector.Candidate> ajouterTicket(int clientId, Ticket ticket) {
+        ticket.setClientId(clientId);
+        ticketRepository.save(ticket);
+        ticket.setChangeListener(this::reindexer);
+        ticketRepository.withLock(ticket.getId(), () -> {
+            indexTickets.put(ticket);
+            filtresTickets.put(ticket);
+            ticketsParClient.put(ticket);
+            triTickets.put(ticket);
+            return null;
+        });
         System.out.println("[OK] Ticket #" + ticket.getId() + " ajoute pour le client #" + clientId);
+
+        List<DuplicateTicketDetector.Candidate> candidats = doublons.register(ticket, MAX_DOUBLONS);
+        double seuil = seuilLiaisonDoublon;
+        if (seuil > 0 && !candidats.isEmpty() && candidats.get(0).similarity() >= seuil) {
+            Ticket original = ticketRepository.findById(candidats.get(0).ticketId());
+            if (original != null) {
+                int parentId = original.getParentId() != 0 ? original.getParentId() : original.getId();
+                ticket.setParentId(parentId);
+                System.out.println("   Doublon probable du ticket #" + parentId + ", rattache automatiquement");
+            }
+        }
+        return candidats;
+    }
+
+    /**
+     * Appelé de façon synchrone après chaque changement journalisé du ticket. Sous le verrou
+     * du ticket, chaque réindexation relit son état courant : deux changements concurrents ne
+     * peuvent pas laisser la plus ancienne lecture en dernier. Un ticket retiré (sous le même
+     * verrou) n'est plus réindexé.
+     */
+    private void reindexer(Ticket ticket) {
+        ticketRepository.withLock(ticket.getId(), () -> {
+            if (ticket.estRetire() || ticketRepository.findById(ticket.getId()) != ticket) {
+                return null;
+            }
+            indexTickets.update(ticket);
+            filtresTickets.update(ticket);
+            ticketsParClient.update(ticket);
+            triTickets.update(ticket);
+            doublons.update(ticket);
+            return null;
+        });
+    }
+
+    /** Supprime un ticket ; renvoie la version de sa pierre tombale, ou -1 s'il n'existe pas. */
+    public long supprimerTicket(int ticketId) {
+        return ticketRepository.withLock(ticketId, () -> retirerTicket(ticketId, TicketChangeLog.Nature.SUPPRIME));
+    }
+
+    /**
+     * Archive un ticket fermé : il quitte le dépôt actif et les index, et le journal des
+     * changements le signale aux lecteurs. Renvoie la version de la pierre tombale, ou -1
+     * s'il n'existe pas.
+     */
+    public long archiverTicket(int ticketId) {
+        return ticketRepository.withLock(ticketId, () -> {
+            Ticket ticket = ticketRepository.findById(ticketId);
+            if (ticket != null && ticket.getStatut() != StatutTicket.FERME) {
+                throw new IllegalStateException("Seul un ticket ferme peut etre archive (#" + ticketId
+                    + " est " + ticket.getStatut().getLibelle() + ")");
+            }
+            return retirerTicket(ticketId, TicketChangeLog.Nature.ARCHIVE);
+        });
+    }
+
+    private long retirerTicket(int ticketId, TicketChangeLog.Nature nature) {
+        Ticket ticket = ticketRepository.delete(ticketId);
+        if (ticket == null) {
+            return -1;
+        }
+        // Hors des index avant la pierre tombale ; sous le verrou, aucune réindexation ne l'y remet
+        ticket.setChangeListener(null);
+        indexTickets.remove(ticketId);
+        filtresTickets.remove(ticketId);
+        ticketsParClient.remove(ticket);
+        triTickets.remove(ticket);
+        doublons.evict(ticketId);
+        long version = ticket.retirer(nature);
+        System.out.println("[OK] Ticket #" + ticketId + " retire (" + nature + ")");
+        return version;
     }
 
     public void ajouterArticle(ArticleBaseConnaissance article) {
-        baseConnaissance.add(article);
+        baseConnaissance.put(article);
         article.ajouter();
     }
 
+    /** Enregistre la modification d'un article et le réindexe. */
+    public void modifierArticle(ArticleBaseConnaissance article) {
+        article.modifier();
+        baseConnaissance.put(article);
+    }
+
+    public void supprimerArticle(ArticleBaseConnaissance article) {
+        if (baseConnaissance.remove(article.getId())) {
+            article.supprimer();
+        }
+    }
+
+    public ArticleBaseConnaissance getArticle(int articleId) {
+        return baseConnaissance.get(articleId);
+    }
+
+    /** Recherche plein texte des tickets, tenue à jour à chaque changement de ticket. */
+    public TicketIndex getIndexTickets() {
+        return indexTickets;
+    }
+
+    /** Filtres de tableau de bord, tenus à jour à chaque changement de ticket. */
+    public TicketBitmapIndex getFiltresTickets() {
+        return filtresTickets;
+    }
+
+    /** Tickets et comptes par statut de chaque client, tenus à jour à chaque changement de ticket. */
+    public ClientTicketIndex getTicketsParClient() {
+        return ticketsParClient;
+    }
+
+    /** Ordres de parcours paginé des tickets (identifiant, date, priorité), tenus à jour à chaque changement. */
+    public TicketSortIndex getTriTickets() {
+        return triTickets;
+    }
+
+    /** Tickets ouverts indexés pour la détection, tenu à jour à chaque changement de ticket. */
+    public DuplicateTicketDetector getDetecteurDoublons() {
+        return doublons;
+    }
+
+    /** Similarité (0..1) à partir de laquelle un doublon est rattaché à son parent ; 0 désactive. */
+    public void setSeuilLiaisonDoublon(double seuil) {
+        this.seuilLiaisonDoublon = seuil;
+    }
+
+    public ArticleIndex getBaseConnaissance() {
+        return baseConnaissance;
+    }
+
     public Ticket getTicket(int ticketId) {
-        return ticketsByClient.get(ticketId);
+        return ticketRepository.findById(ticketId);
     }
 
     public List<Ticket> getTousLesTickets() {
-        return new ArrayList<>(ticketsByClient.values());
+        return ticketRepository.findAll();
+    }
+
+    public TicketRepository getTicketRepository() {
+        return ticketRepository;
     }
 }
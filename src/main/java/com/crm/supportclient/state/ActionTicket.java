@@ -0,0 +1,8 @@
+package com.crm.supportclient.state;
+
+/** Actions pouvant déclencher une transition d'état. */
+public enum ActionTicket {
+    ASSIGNER,
+    RESOUDRE,
+    FERMER
+}
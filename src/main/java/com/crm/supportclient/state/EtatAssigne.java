@@ -2,34 +2,56 @@ package com.crm.supportclient.state;
 
 import com.crm.supportclient.model.Ticket;
 import com.crm.supportclient.model.StatutTicket;
+import com.crm.supportclient.model.TicketSnapshot;
+
+import java.util.UUID;
 
 /** État Assigné - Ticket attribué à un agent. */
 public class EtatAssigne implements TicketState {
 
     @Override
     public void assigner(Ticket ticket) {
-        System.out.println("[État Assigné] Réassignation du ticket #" + ticket.getId());
-        // Le ticket reste dans l'état assigné mais change d'agent
-        ticket.notifyObservers();
+        ticket.assigner(ticket.getAssignedSupportId());
     }
 
     @Override
     public void resoudre(Ticket ticket, String solution) {
-        System.out.println("[État Assigné] Passage en cours de traitement du ticket #" + ticket.getId());
-        ticket.setStatut(StatutTicket.EN_COURS);
-        ticket.setState(new EtatEnCours());
-        ticket.notifyObservers();
-        
-        // Déléguer la résolution à l'état EnCours
-        ticket.getState().resoudre(ticket, solution);
+        ticket.resoudre(solution);
     }
 
     @Override
     public void fermer(Ticket ticket) {
-        System.out.println("[État Assigné] Impossible de fermer un ticket non résolu.");
+        ticket.fermer();
+    }
+
+    @Override
+    public TicketSnapshot assigner(Ticket ticket, TicketSnapshot courant, UUID supportId) {
+        // Le ticket reste dans l'état assigné mais change d'agent
+        return courant.avecAgent(supportId);
+    }
+
+    @Override
+    public TicketSnapshot resoudre(Ticket ticket, TicketSnapshot courant, String solution) {
+        TicketSnapshot enCours = courant.vers(StatutTicket.EN_COURS);
+
+        // Déléguer la résolution à l'état EnCours (une seule transition atomique)
+        return enCours.state().resoudre(ticket, enCours, solution);
+    }
+
+    @Override
+    public TicketSnapshot fermer(Ticket ticket, TicketSnapshot courant) {
         throw new IllegalStateException("Un ticket assigné doit être résolu avant d'être fermé.");
     }
 
+    @Override
+    public String decrire(Ticket ticket, ActionTicket action, TicketSnapshot suivant) {
+        if (action == ActionTicket.RESOUDRE) {
+            return "[État Assigné] Passage en cours de traitement du ticket #" + ticket.getId() + "\n"
+                + MachineEtats.etat(StatutTicket.EN_COURS).decrire(ticket, action, suivant);
+        }
+        return "[État Assigné] Réassignation du ticket #" + ticket.getId();
+    }
+
     @Override
     public String getNomEtat() {
         return "Assigné";
@@ -2,35 +2,54 @@ package com.crm.supportclient.state;
 
 import com.crm.supportclient.model.Ticket;
 import com.crm.supportclient.model.StatutTicket;
+import com.crm.supportclient.model.TicketSnapshot;
+
+import java.util.UUID;
 
 /** État En Cours - Ticket en traitement. */
 public class EtatEnCours implements TicketState {
 
     @Override
     public void assigner(Ticket ticket) {
-        System.out.println("[État En Cours] Réassignation du ticket #" + ticket.getId() + " - Retour à l'état Assigné");
-        ticket.setStatut(StatutTicket.ASSIGNE);
-        ticket.setState(new EtatAssigne());
-        ticket.notifyObservers();
+        ticket.assigner(ticket.getAssignedSupportId());
     }
 
     @Override
     public void resoudre(Ticket ticket, String solution) {
-        System.out.println("[État En Cours] Résolution du ticket #" + ticket.getId());
-        System.out.println("Solution apportée: " + solution);
-        ticket.setSolution(solution);
-        ticket.setStatut(StatutTicket.RESOLU);
-        ticket.setState(new EtatResolu());
-        ticket.setDateResolution(java.time.LocalDateTime.now());
-        ticket.notifyObservers();
+        ticket.resoudre(solution);
     }
 
     @Override
     public void fermer(Ticket ticket) {
-        System.out.println("[État En Cours] Impossible de fermer un ticket non résolu.");
+        ticket.fermer();
+    }
+
+    @Override
+    public TicketSnapshot assigner(Ticket ticket, TicketSnapshot courant, UUID supportId) {
+        return courant.vers(StatutTicket.ASSIGNE)
+            .avecAgent(supportId);
+    }
+
+    @Override
+    public TicketSnapshot resoudre(Ticket ticket, TicketSnapshot courant, String solution) {
+        return courant.vers(StatutTicket.RESOLU)
+            .avecSolution(solution, java.time.LocalDateTime.now());
+    }
+
+    @Override
+    public TicketSnapshot fermer(Ticket ticket, TicketSnapshot courant) {
         throw new IllegalStateException("Un ticket en cours doit être résolu avant d'être fermé.");
     }
 
+    @Override
+    public String decrire(Ticket ticket, ActionTicket action, TicketSnapshot suivant) {
+        if (action == ActionTicket.RESOUDRE) {
+            return "[État En Cours] Résolution du ticket #" + ticket.getId() + "\n"
+                + "Solution apportée: " + suivant.solution();
+        }
+        return "[État En Cours] Réassignation du ticket #" + ticket.getId() + " - Retour à l'état Assigné";
+    }
+
     @Override
     public String getNomEtat() {
         return "En Cours";
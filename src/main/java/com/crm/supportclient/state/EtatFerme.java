@@ -2,29 +2,51 @@ package com.crm.supportclient.state;
 
 import com.crm.supportclient.model.Ticket;
 import com.crm.supportclient.model.StatutTicket;
+import com.crm.supportclient.model.TicketSnapshot;
+
+import java.util.UUID;
 
 /** État Fermé - Ticket clôturé. */
 public class EtatFerme implements TicketState {
 
     @Override
     public void assigner(Ticket ticket) {
-        System.out.println("[État Fermé] Réouverture exceptionnelle du ticket #" + ticket.getId());
-        ticket.setStatut(StatutTicket.OUVERT);
-        ticket.setState(new EtatOuvert());
-        ticket.setDateResolution(null);
-        ticket.setSolution(null);
-        ticket.notifyObservers();
+        ticket.assigner(ticket.getAssignedSupportId());
     }
 
     @Override
     public void resoudre(Ticket ticket, String solution) {
-        System.out.println("[État Fermé] Impossible de résoudre un ticket fermé.");
-        throw new IllegalStateException("Un ticket fermé ne peut pas être résolu. Réouvrez-le d'abord.");
+        ticket.resoudre(solution);
     }
 
     @Override
     public void fermer(Ticket ticket) {
-        System.out.println("[État Fermé] Le ticket #" + ticket.getId() + " est déjà fermé.");
+        ticket.fermer();
+    }
+
+    @Override
+    public TicketSnapshot assigner(Ticket ticket, TicketSnapshot courant, UUID supportId) {
+        return courant.vers(StatutTicket.OUVERT)
+            .avecAgent(supportId)
+            .avecSolution(null, null);
+    }
+
+    @Override
+    public TicketSnapshot resoudre(Ticket ticket, TicketSnapshot courant, String solution) {
+        throw new IllegalStateException("Un ticket fermé ne peut pas être résolu. Réouvrez-le d'abord.");
+    }
+
+    @Override
+    public TicketSnapshot fermer(Ticket ticket, TicketSnapshot courant) {
+        return courant;
+    }
+
+    @Override
+    public String decrire(Ticket ticket, ActionTicket action, TicketSnapshot suivant) {
+        if (action == ActionTicket.FERMER) {
+            return "[État Fermé] Le ticket #" + ticket.getId() + " est déjà fermé.";
+        }
+        return "[État Fermé] Réouverture exceptionnelle du ticket #" + ticket.getId();
     }
 
     @Override
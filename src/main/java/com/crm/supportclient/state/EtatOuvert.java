@@ -2,30 +2,49 @@ package com.crm.supportclient.state;
 
 import com.crm.supportclient.model.Ticket;
 import com.crm.supportclient.model.StatutTicket;
+import com.crm.supportclient.model.TicketSnapshot;
+
+import java.util.UUID;
 
 /** État Ouvert - Ticket non assigné. */
 public class EtatOuvert implements TicketState {
 
     @Override
     public void assigner(Ticket ticket) {
-        System.out.println("[État Ouvert] Assignation du ticket #" + ticket.getId());
-        ticket.setStatut(StatutTicket.ASSIGNE);
-        ticket.setState(new EtatAssigne());
-        ticket.notifyObservers();
+        ticket.assigner(ticket.getAssignedSupportId());
     }
 
     @Override
     public void resoudre(Ticket ticket, String solution) {
-        System.out.println("[État Ouvert] Impossible de résoudre un ticket non assigné.");
-        throw new IllegalStateException("Un ticket ouvert doit d'abord être assigné avant d'être résolu.");
+        ticket.resoudre(solution);
     }
 
     @Override
     public void fermer(Ticket ticket) {
-        System.out.println("[État Ouvert] Impossible de fermer un ticket non traité.");
+        ticket.fermer();
+    }
+
+    @Override
+    public TicketSnapshot assigner(Ticket ticket, TicketSnapshot courant, UUID supportId) {
+        return courant.vers(StatutTicket.ASSIGNE)
+            .avecAgent(supportId);
+    }
+
+    @Override
+    public TicketSnapshot resoudre(Ticket ticket, TicketSnapshot courant, String solution) {
+        throw new IllegalStateException("Un ticket ouvert doit d'abord être assigné avant d'être résolu.");
+    }
+
+    @Override
+    public TicketSnapshot fermer(Ticket ticket, TicketSnapshot courant) {
         throw new IllegalStateException("Un ticket ouvert ne peut pas être fermé directement.");
     }
 
+    @Override
+    public String decrire(Ticket ticket, ActionTicket action, TicketSnapshot suivant) {
+        return "[État Ouvert] Assignation du ticket #" + ticket.getId();
+    }
+
     @Override
     public String getNomEtat() {
         return "Ouvert";
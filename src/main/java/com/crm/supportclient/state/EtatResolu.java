@@ -2,34 +2,52 @@ package com.crm.supportclient.state;
 
 import com.crm.supportclient.model.Ticket;
 import com.crm.supportclient.model.StatutTicket;
+import com.crm.supportclient.model.TicketSnapshot;
+
+import java.util.UUID;
 
 /** État Résolu - Solution apportée. */
 public class EtatResolu implements TicketState {
 
     @Override
     public void assigner(Ticket ticket) {
-        System.out.println("[État Résolu] Réouverture du ticket #" + ticket.getId() + " - Retour à l'état Assigné");
-        ticket.setStatut(StatutTicket.ASSIGNE);
-        ticket.setState(new EtatAssigne());
-        ticket.setDateResolution(null);
-        ticket.setSolution(null);
-        ticket.notifyObservers();
+        ticket.assigner(ticket.getAssignedSupportId());
     }
 
     @Override
     public void resoudre(Ticket ticket, String solution) {
-        System.out.println("[État Résolu] Mise à jour de la solution du ticket #" + ticket.getId());
-        ticket.setSolution(solution);
-        ticket.setDateResolution(java.time.LocalDateTime.now());
-        ticket.notifyObservers();
+        ticket.resoudre(solution);
     }
 
     @Override
     public void fermer(Ticket ticket) {
-        System.out.println("[État Résolu] Fermeture du ticket #" + ticket.getId());
-        ticket.setStatut(StatutTicket.FERME);
-        ticket.setState(new EtatFerme());
-        ticket.notifyObservers();
+        ticket.fermer();
+    }
+
+    @Override
+    public TicketSnapshot assigner(Ticket ticket, TicketSnapshot courant, UUID supportId) {
+        return courant.vers(StatutTicket.ASSIGNE)
+            .avecAgent(supportId)
+            .avecSolution(null, null);
+    }
+
+    @Override
+    public TicketSnapshot resoudre(Ticket ticket, TicketSnapshot courant, String solution) {
+        return courant.avecSolution(solution, java.time.LocalDateTime.now());
+    }
+
+    @Override
+    public TicketSnapshot fermer(Ticket ticket, TicketSnapshot courant) {
+        return courant.vers(StatutTicket.FERME);
+    }
+
+    @Override
+    public String decrire(Ticket ticket, ActionTicket action, TicketSnapshot suivant) {
+        return switch (action) {
+            case ASSIGNER -> "[État Résolu] Réouverture du ticket #" + ticket.getId() + " - Retour à l'état Assigné";
+            case RESOUDRE -> "[État Résolu] Mise à jour de la solution du ticket #" + ticket.getId();
+            case FERMER -> "[État Résolu] Fermeture du ticket #" + ticket.getId();
+        };
     }
 
     @Override
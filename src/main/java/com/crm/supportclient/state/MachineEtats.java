@@ -0,0 +1,132 @@
+package com.crm.supportclient.state;
+
+import com.crm.supportclient.model.StatutTicket;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Machine à états des tickets, pilotée par table.
+ * Les états sont des singletons sans état, indexés par {@link StatutTicket} ;
+ * les transitions autorisées sont déclarées dans une {@link EnumMap} validée au chargement.
+ * Le ticket ne stocke que son statut : l'objet état s'en déduit, sans double comptabilité.
+ */
+public final class MachineEtats {
+
+    private static final Map<StatutTicket, TicketState> ETATS = new EnumMap<>(StatutTicket.class);
+    private static final Map<StatutTicket, Map<ActionTicket, StatutTicket>> TRANSITIONS =
+        new EnumMap<>(StatutTicket.class);
+
+    static {
+        ETATS.put(StatutTicket.OUVERT, new EtatOuvert());
+        ETATS.put(StatutTicket.ASSIGNE, new EtatAssigne());
+        ETATS.put(StatutTicket.EN_COURS, new EtatEnCours());
+        ETATS.put(StatutTicket.RESOLU, new EtatResolu());
+        ETATS.put(StatutTicket.FERME, new EtatFerme());
+
+        declarer(StatutTicket.OUVERT, ActionTicket.ASSIGNER, StatutTicket.ASSIGNE);
+
+        declarer(StatutTicket.ASSIGNE, ActionTicket.ASSIGNER, StatutTicket.ASSIGNE);
+        declarer(StatutTicket.ASSIGNE, ActionTicket.RESOUDRE, StatutTicket.EN_COURS);
+
+        declarer(StatutTicket.EN_COURS, ActionTicket.ASSIGNER, StatutTicket.ASSIGNE);
+        declarer(StatutTicket.EN_COURS, ActionTicket.RESOUDRE, StatutTicket.RESOLU);
+
+        declarer(StatutTicket.RESOLU, ActionTicket.ASSIGNER, StatutTicket.ASSIGNE);
+        declarer(StatutTicket.RESOLU, ActionTicket.RESOUDRE, StatutTicket.RESOLU);
+        declarer(StatutTicket.RESOLU, ActionTicket.FERMER, StatutTicket.FERME);
+
+        declarer(StatutTicket.FERME, ActionTicket.ASSIGNER, StatutTicket.OUVERT);
+        declarer(StatutTicket.FERME, ActionTicket.FERMER, StatutTicket.FERME);
+
+        valider();
+    }
+
+    private MachineEtats() {
+    }
+
+    private static void declarer(StatutTicket depuis, ActionTicket action, StatutTicket vers) {
+        TRANSITIONS.computeIfAbsent(depuis, s -> new EnumMap<>(ActionTicket.class)).put(action, vers);
+    }
+
+    /** Retourne l'état (singleton) associé à un statut. */
+    public static TicketState etat(StatutTicket statut) {
+        return ETATS.get(statut);
+    }
+
+    /** Retrouve le statut correspondant à une implémentation d'état. */
+    public static StatutTicket statutDe(TicketState state) {
+        for (Map.Entry<StatutTicket, TicketState> entry : ETATS.entrySet()) {
+            if (entry.getValue().getClass() == state.getClass()) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalArgumentException("Etat inconnu de la machine: " + state.getClass().getName());
+    }
+
+    /** Statut cible d'une action, ou {@code null} si la transition n'est pas déclarée. */
+    public static StatutTicket cible(StatutTicket depuis, ActionTicket action) {
+        Map<ActionTicket, StatutTicket> sortantes = TRANSITIONS.get(depuis);
+        return sortantes == null ? null : sortantes.get(action);
+    }
+
+    /**
+     * Vérifie qu'une action peut mener de {@code depuis} à {@code vers}, directement
+     * ou en enchaînant la même action (ex: Assigné -> En cours -> Résolu).
+     */
+    public static boolean estAutorisee(StatutTicket depuis, ActionTicket action, StatutTicket vers) {
+        StatutTicket courant = depuis;
+        for (int i = 0; i < StatutTicket.values().length; i++) {
+            StatutTicket suivant = cible(courant, action);
+            if (suivant == null) {
+                return false;
+            }
+            if (suivant == vers) {
+                return true;
+            }
+            courant = suivant;
+        }
+        return false;
+    }
+
+    /** Vue en lecture seule de la table des transitions. */
+    public static Map<StatutTicket, Map<ActionTicket, StatutTicket>> getTransitions() {
+        Map<StatutTicket, Map<ActionTicket, StatutTicket>> vue = new EnumMap<>(StatutTicket.class);
+        for (StatutTicket statut : StatutTicket.values()) {
+            vue.put(statut, Collections.unmodifiableMap(
+                TRANSITIONS.getOrDefault(statut, new EnumMap<>(ActionTicket.class))));
+        }
+        return Collections.unmodifiableMap(vue);
+    }
+
+    /**
+     * Contrôle la cohérence de la table : chaque statut a un état,
+     * et chaque statut est atteignable depuis OUVERT.
+     */
+    public static void valider() {
+        for (StatutTicket statut : StatutTicket.values()) {
+            if (ETATS.get(statut) == null) {
+                throw new IllegalStateException("Aucun etat declare pour le statut " + statut);
+            }
+        }
+
+        Set<StatutTicket> atteints = EnumSet.of(StatutTicket.OUVERT);
+        Deque<StatutTicket> aVisiter = new ArrayDeque<>(atteints);
+        while (!aVisiter.isEmpty()) {
+            for (StatutTicket vers : TRANSITIONS.getOrDefault(aVisiter.pop(), Map.of()).values()) {
+                if (atteints.add(vers)) {
+                    aVisiter.push(vers);
+                }
+            }
+        }
+        if (atteints.size() != StatutTicket.values().length) {
+            Set<StatutTicket> isoles = EnumSet.complementOf(EnumSet.copyOf(atteints));
+            throw new IllegalStateException("Statuts inatteignables depuis OUVERT: " + isoles);
+        }
+    }
+}
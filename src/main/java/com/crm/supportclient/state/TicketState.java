@@ -1,11 +1,50 @@
 package com.crm.supportclient.state;
 
+import com.crm.supportclient.model.StatutTicket;
 import com.crm.supportclient.model.Ticket;
+import com.crm.supportclient.model.TicketSnapshot;
 
-/** Interface State - Comportements selon l'état du ticket. */
+import java.util.UUID;
+
+/**
+ * Interface State - Comportements selon l'état du ticket.
+ * Les transitions du ticket passent par les variantes à instantané : des fonctions pures qui
+ * calculent l'instantané suivant sans modifier le ticket, qui l'applique ensuite par
+ * compare-and-set (et peut donc les rejouer). Elles ont une implémentation par défaut tirée
+ * de la table de {@link MachineEtats}, pour que les implémentations existantes compilent.
+ */
 public interface TicketState {
     void assigner(Ticket ticket);
     void resoudre(Ticket ticket, String solution);
     void fermer(Ticket ticket);
     String getNomEtat();
+
+    default TicketSnapshot assigner(Ticket ticket, TicketSnapshot courant, UUID supportId) {
+        return suivant(courant, ActionTicket.ASSIGNER).avecAgent(supportId);
+    }
+
+    default TicketSnapshot resoudre(Ticket ticket, TicketSnapshot courant, String solution) {
+        return suivant(courant, ActionTicket.RESOUDRE).avecSolution(solution, java.time.LocalDateTime.now());
+    }
+
+    default TicketSnapshot fermer(Ticket ticket, TicketSnapshot courant) {
+        return suivant(courant, ActionTicket.FERMER);
+    }
+
+    /**
+     * Trace d'une transition appliquée, écrite une seule fois par le ticket après le
+     * compare-and-set (jamais pendant le calcul, qui peut être rejoué).
+     */
+    default String decrire(Ticket ticket, ActionTicket action, TicketSnapshot suivant) {
+        return "[État " + getNomEtat() + "] " + action + " du ticket #" + ticket.getId()
+            + " -> " + suivant.state().getNomEtat();
+    }
+
+    private TicketSnapshot suivant(TicketSnapshot courant, ActionTicket action) {
+        StatutTicket cible = MachineEtats.cible(courant.statut(), action);
+        if (cible == null) {
+            throw new IllegalStateException("Action " + action + " impossible depuis l'état " + getNomEtat());
+        }
+        return courant.vers(cible);
+    }
 }
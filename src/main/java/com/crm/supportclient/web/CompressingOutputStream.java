@@ -0,0 +1,82 @@
+package com.crm.supportclient.web;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Corps de réponse compressé en gzip seulement s'il dépasse un seuil. Les premiers octets
+ * sont retenus : une réponse terminée avant le seuil part telle quelle, avec sa longueur.
+ * Au-delà, les en-têtes sont envoyés avec {@code Content-Encoding: gzip} et la suite est
+ * compressée au fil de l'eau, en transfert chunked. Les en-têtes de la réponse doivent être
+ * posés avant la première écriture.
+ */
+final class CompressingOutputStream extends OutputStream {
+
+    private static final int GZIP_BUFFER = 8192;
+
+    private final HttpExchange exchange;
+    private final int status;
+    private final byte[] pending;
+    private int count;
+    /** Flux compressé, une fois le seuil franchi. */
+    private OutputStream out;
+    private boolean closed;
+
+    CompressingOutputStream(HttpExchange exchange, int status, int threshold) {
+        this.exchange = exchange;
+        this.status = status;
+        this.pending = new byte[threshold];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (out == null && count + len <= pending.length) {
+            System.arraycopy(b, off, pending, count, len);
+            count += len;
+            return;
+        }
+        if (out == null) {
+            startGzip();
+        }
+        out.write(b, off, len);
+    }
+
+    /** Sans effet sous le seuil : la taille n'est pas encore connue. */
+    @Override
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (out != null) {
+            out.close();
+            return;
+        }
+        exchange.sendResponseHeaders(status, count == 0 ? -1 : count);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(pending, 0, count);
+        }
+    }
+
+    private void startGzip() throws IOException {
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        exchange.sendResponseHeaders(status, 0);
+        out = new GZIPOutputStream(exchange.getResponseBody(), GZIP_BUFFER);
+        out.write(pending, 0, count);
+    }
+}
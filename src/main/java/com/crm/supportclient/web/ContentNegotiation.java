@@ -0,0 +1,65 @@
+package com.crm.supportclient.web;
+
+import java.util.Locale;
+
+/** En-têtes de négociation HTTP : encodage accepté et requêtes conditionnelles. */
+final class ContentNegotiation {
+
+    private ContentNegotiation() {
+    }
+
+    /**
+     * gzip acceptable d'après {@code Accept-Encoding} : cité (ou {@code *}) avec un poids
+     * {@code q} non nul. Un {@code gzip;q=0} explicite l'emporte sur {@code *}.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzip = -1;
+        double any = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = q;
+            } else if (coding.equals("*")) {
+                any = q;
+            }
+        }
+        return gzip >= 0 ? gzip > 0 : any > 0;
+    }
+
+    /** Comparaison faible de If-None-Match : liste d'étiquettes, {@code W/} ignoré, ou {@code *}. */
+    static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(etag) || candidate.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Étiquette de la variante gzip : une ETag forte désigne des octets précis. */
+    static String gzipVariant(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+}
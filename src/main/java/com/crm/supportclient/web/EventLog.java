@@ -0,0 +1,93 @@
+package com.crm.supportclient.web;
+
+import com.crm.supportclient.model.StatutTicket;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Journal des événements du tableau de bord : tampon circulaire de capacité fixe, sans verrou.
+ * Chaque événement reçoit un numéro de séquence croissant (à partir de 1) ; un écrivain
+ * réserve son numéro par incrément atomique puis publie l'événement dans la case
+ * {@code sequence % capacité}, en écrasant le plus ancien. Les lecteurs demandent les
+ * événements postérieurs à la dernière séquence vue et ne relisent jamais les autres.
+ */
+public final class EventLog {
+
+    /** Événement publié. {@code ticketId} vaut 0 et les statuts null hors d'un ticket. */
+    public record Event(long sequence, LocalDateTime timestamp, String type, int ticketId,
+                        StatutTicket from, StatutTicket to, String message) {
+    }
+
+    /** Événements lus, du plus ancien au plus récent ; {@code truncated} si certains ont été écrasés. */
+    public record Page(List<Event> events, long lastSequence, boolean truncated) {
+    }
+
+    private final AtomicReferenceArray<Event> slots;
+    private final int mask;
+    /** Dernière séquence réservée. */
+    private final AtomicLong claimed = new AtomicLong();
+
+    public EventLog(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity doit etre >= 1: " + capacity);
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    public Event append(String type, int ticketId, StatutTicket from, StatutTicket to, String message) {
+        long sequence = claimed.incrementAndGet();
+        Event event = new Event(sequence, LocalDateTime.now(), type, ticketId, from, to, message);
+        slots.set((int) (sequence & mask), event);
+        return event;
+    }
+
+    /** Dernière séquence réservée (l'événement correspondant peut être en cours de publication). */
+    public long lastSequence() {
+        return claimed.get();
+    }
+
+    /**
+     * Événements de séquence strictement supérieure à {@code since}, au plus {@code limit}
+     * parmi les plus récents. La lecture s'arrête au premier événement pas encore publié,
+     * pour ne jamais laisser de trou qu'un lecteur sauterait définitivement.
+     */
+    public Page since(long since, int limit) {
+        long last = claimed.get();
+        if (since > last) {
+            // Séquence d'une instance précédente (redémarrage) : tout est nouveau
+            since = 0;
+        }
+        long oldest = Math.max(1, last - slots.length() + 1);
+        long from = Math.max(Math.max(since + 1, oldest), last - limit + 1);
+        boolean truncated = from > since + 1;
+        List<Event> events = new ArrayList<>((int) Math.max(0, Math.min(limit, last - from + 1)));
+        long published = Math.max(since, from - 1);
+        for (long sequence = from; sequence <= last; sequence++) {
+            Event event = slots.get((int) (sequence & mask));
+            if (event == null || event.sequence() < sequence) {
+                break;
+            }
+            if (event.sequence() > sequence) {
+                // Écrasé pendant la lecture par un écrivain qui a fait le tour du tampon
+                truncated = true;
+                continue;
+            }
+            events.add(event);
+            published = sequence;
+        }
+        return new Page(events, published, truncated);
+    }
+}
@@ -0,0 +1,206 @@
+package com.crm.supportclient.web;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Diffusion Server-Sent Events vers les navigateurs abonnés ({@code GET /api/stream}).
+ * Chaque connexion a sa file bornée de trames et un thread virtuel qui l'écrit : une
+ * connexion inactive ne coûte qu'un thread virtuel parqué, quel que soit le mode
+ * d'exécution du serveur. Un client trop lent pour vider sa file est déconnecté, sans
+ * ralentir la publication ; il se reconnecte avec {@code Last-Event-ID}, et l'appelant lui
+ * fournit le rattrapage depuis cet identifiant (ou une trame {@code reset} : tout recharger).
+ * Seules les trames identifiées comptent pour la reprise ; les autres ne sont pas rejouées.
+ * Un commentaire est envoyé sur une connexion restée silencieuse pendant {@code heartbeat}.
+ * <p>
+ * L'écriture dans le corps d'un {@code HttpExchange} est synchronisée : bloquée sur un client
+ * qui ne lit plus, elle épingle le thread porteur du thread virtuel, et quelques clients de ce
+ * genre suffiraient à geler tous les threads virtuels (requêtes comprises). Un chien de garde
+ * sur thread plateforme évince donc toute connexion dont l'écriture dépasse {@code writeTimeout} ;
+ * l'interruption du thread d'écriture ferme sa socket et libère le porteur.
+ */
+public final class EventStream implements Closeable {
+
+    /** Trame SSE ; {@code data} tient sur une ligne (JSON). Sans {@code id}, elle n'est pas reprise. */
+    public record Frame(String id, String event, String data) {
+        byte[] encode() {
+            String head = id == null ? "" : "id: " + id + "\n";
+            return (head + "event: " + event + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final byte[] HEARTBEAT = ": ping\n\n".getBytes(StandardCharsets.US_ASCII);
+    /** Délai de reconnexion suggéré au navigateur. */
+    private static final byte[] RETRY = "retry: 3000\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final class Connection {
+        final HttpExchange exchange;
+        final BlockingQueue<Frame> queue;
+        Thread writer;
+        volatile boolean closed;
+        /** Début de l'écriture en cours (System.nanoTime), 0 hors écriture. */
+        volatile long writingSince;
+
+        Connection(HttpExchange exchange, int bufferSize) {
+            this.exchange = exchange;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        /** Interrompt l'attente ou l'écriture en cours : la socket est fermée. */
+        void close() {
+            closed = true;
+            queue.clear();
+            writer.interrupt();
+        }
+    }
+
+    private final int bufferSize;
+    private final long heartbeatMillis;
+    private final long writeTimeoutNanos;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    /** Identifiant de la dernière trame identifiée publiée ; gardé par {@code this}. */
+    private String lastId;
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+    private final ScheduledExecutorService watchdog;
+
+    public EventStream(int bufferSize, long heartbeatMillis, long writeTimeoutMillis) {
+        if (bufferSize < 1 || heartbeatMillis < 1 || writeTimeoutMillis < 1) {
+            throw new IllegalArgumentException("bufferSize >= 1, heartbeat >= 1 et writeTimeout >= 1 attendus");
+        }
+        this.bufferSize = bufferSize;
+        this.heartbeatMillis = heartbeatMillis;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("sse-watchdog").daemon(true).factory());
+        long period = Math.max(1, writeTimeoutMillis / 2);
+        watchdog.scheduleWithFixedDelay(this::evictStalled, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /** Publie une trame sans identifiant, qui ne sera pas reprise après une reconnexion. */
+    public void publish(String event, String data) {
+        publish(new Frame(null, event, data));
+    }
+
+    /**
+     * Publie une trame vers toutes les connexions, dans l'ordre des appels. Une file pleine ne
+     * bloque jamais : la connexion correspondante est évincée.
+     */
+    public synchronized void publish(Frame frame) {
+        if (frame.id() != null) {
+            lastId = frame.id();
+        }
+        for (Connection connection : connections) {
+            if (!connection.queue.offer(frame)) {
+                evict(connection);
+            }
+        }
+    }
+
+    /**
+     * Ouvre le flux sur l'échange et rend la main aussitôt : l'écriture se fait sur un thread
+     * virtuel dédié. {@code catchUp} fournit les trames manquées depuis le {@code Last-Event-ID}
+     * du client, ou null si la reprise est impossible (trame {@code reset}) ; il est appelé sous
+     * le verrou de publication, si bien qu'aucune trame publiée entre-temps n'est perdue. Un
+     * rattrapage plus long que la file de la connexion est remplacé par un {@code reset}.
+     */
+    public void open(HttpExchange exchange, Supplier<List<Frame>> catchUp) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=UTF-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().set("X-Accel-Buffering", "no");
+        exchange.sendResponseHeaders(200, 0);
+
+        Connection connection = new Connection(exchange, bufferSize);
+        connection.writer = Thread.ofVirtual().name("sse-" + opened.incrementAndGet())
+            .unstarted(() -> pump(connection));
+        synchronized (this) {
+            List<Frame> missed = catchUp.get();
+            if (missed == null || missed.size() > bufferSize) {
+                connection.queue.offer(new Frame(lastId, "reset", "{}"));
+            } else {
+                missed.forEach(connection.queue::offer);
+            }
+            connections.add(connection);
+        }
+        connection.writer.start();
+    }
+
+    public int getConnections() {
+        return connections.size();
+    }
+
+    public long getEvicted() {
+        return evicted.get();
+    }
+
+    public synchronized String getLastId() {
+        return lastId;
+    }
+
+    /** Ferme toutes les connexions (arrêt du serveur). */
+    @Override
+    public void close() {
+        watchdog.shutdownNow();
+        for (Connection connection : connections) {
+            connections.remove(connection);
+            connection.close();
+        }
+    }
+
+    private void evict(Connection connection) {
+        if (connections.remove(connection)) {
+            evicted.incrementAndGet();
+            connection.close();
+        }
+    }
+
+    private void evictStalled() {
+        long now = System.nanoTime();
+        for (Connection connection : connections) {
+            long since = connection.writingSince;
+            if (since != 0 && now - since > writeTimeoutNanos) {
+                evict(connection);
+            }
+        }
+    }
+
+    private void pump(Connection connection) {
+        try {
+            OutputStream out = connection.exchange.getResponseBody();
+            write(connection, out, RETRY);
+            while (!connection.closed) {
+                Frame frame = connection.queue.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                write(connection, out, frame == null ? HEARTBEAT : frame.encode());
+            }
+        } catch (IOException | InterruptedException e) {
+            // Client parti ou évincé : la connexion est simplement retirée
+        } finally {
+            connections.remove(connection);
+            connection.exchange.close();
+        }
+    }
+
+    private static void write(Connection connection, OutputStream out, byte[] bytes) throws IOException {
+        connection.writingSince = System.nanoTime();
+        try {
+            out.write(bytes);
+            out.flush();
+        } finally {
+            connection.writingSince = 0;
+        }
+    }
+}
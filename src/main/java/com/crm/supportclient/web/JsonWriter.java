@@ -0,0 +1,303 @@
+package com.crm.supportclient.web;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Écriture JSON en flux, directement en UTF-8 dans un {@link OutputStream}.
+ * Les chaînes sont échappées et encodées en un seul passage dans un tampon d'octets
+ * réutilisé, vidé au fil de l'eau : ni chaîne intermédiaire, ni copie du document entier.
+ * Les virgules entre éléments sont placées automatiquement. Non thread-safe.
+ */
+public final class JsonWriter implements Closeable {
+
+    private static final int DEFAULT_BUFFER = 8192;
+    private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L};
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int count;
+    /** Pour chaque niveau d'imbrication : un élément y a-t-il déjà été écrit ? */
+    private boolean[] started = new boolean[16];
+    private int depth;
+    /** Un nom vient d'être écrit : la valeur suivante ne prend pas de virgule. */
+    private boolean afterName;
+
+    public JsonWriter(OutputStream out) {
+        this(out, DEFAULT_BUFFER);
+    }
+
+    public JsonWriter(OutputStream out, int bufferSize) {
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("bufferSize doit etre >= 16: " + bufferSize);
+        }
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    /** Nom du prochain membre de l'objet courant. */
+    public JsonWriter name(String name) throws IOException {
+        separator();
+        writeString(name);
+        writeByte(':');
+        afterName = true;
+        return this;
+    }
+
+    /** Chaîne échappée, ou {@code null} JSON. */
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        separator();
+        writeString(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        separator();
+        writeLong(value);
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        separator();
+        writeAscii(value ? "true" : "false");
+        return this;
+    }
+
+    /** Nombre à virgule fixe, arrondi à {@code decimals} chiffres (0 à 6) ; {@code null} si non fini. */
+    public JsonWriter value(double value, int decimals) throws IOException {
+        if (decimals < 0 || decimals >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("decimals hors de [0, 6]: " + decimals);
+        }
+        if (!Double.isFinite(value)) {
+            return nullValue();
+        }
+        separator();
+        long scale = POWERS_OF_TEN[decimals];
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) {
+            writeByte('-');
+        }
+        writeLong(scaled / scale);
+        if (decimals > 0) {
+            writeByte('.');
+            long fraction = scaled % scale;
+            for (long digit = scale / 10; digit > 0; digit /= 10) {
+                writeByte('0' + (int) (fraction / digit % 10));
+            }
+        }
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        separator();
+        writeAscii("null");
+        return this;
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /** Vide le tampon et ferme le flux sous-jacent (fin de la réponse HTTP). */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Chaîne échappée pour un littéral JSON (sans les guillemets), en un seul passage.
+     * Pour les petits documents construits en mémoire ; renvoie la chaîne elle-même si
+     * rien n'est à échapper.
+     */
+    public static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+        int i = 0;
+        while (i < text.length() && !needsEscape(text.charAt(i))) {
+            i++;
+        }
+        if (i == text.length()) {
+            return text;
+        }
+        StringBuilder escaped = new StringBuilder(text.length() + 16).append(text, 0, i);
+        for (; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> escaped.append("\\\"");
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\t' -> escaped.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        escaped.append("\\u00").append((char) HEX[c >> 4]).append((char) HEX[c & 0xF]);
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static boolean needsEscape(char c) {
+        return c < 0x20 || c == '"' || c == '\\';
+    }
+
+    private JsonWriter open(char bracket) throws IOException {
+        separator();
+        writeByte(bracket);
+        if (++depth == started.length) {
+            started = Arrays.copyOf(started, depth * 2);
+        }
+        started[depth] = false;
+        return this;
+    }
+
+    private JsonWriter close(char bracket) throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("Aucun objet ou tableau ouvert");
+        }
+        depth--;
+        writeByte(bracket);
+        return this;
+    }
+
+    private void separator() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (started[depth]) {
+            writeByte(',');
+        }
+        started[depth] = true;
+    }
+
+    /** Échappement et encodage UTF-8 en un passage ; 6 octets au plus par caractère. */
+    private void writeString(String value) throws IOException {
+        writeByte('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (buffer.length - count < 6) {
+                flushBuffer();
+            }
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (needsEscape(c)) {
+                    writeEscaped(c);
+                } else {
+                    buffer[count++] = (byte) c;
+                }
+            } else if (c < 0x800) {
+                buffer[count++] = (byte) (0xC0 | (c >> 6));
+                buffer[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Demi-paire isolée : remplacée comme le fait String.getBytes(UTF_8)
+                buffer[count++] = '?';
+            } else {
+                buffer[count++] = (byte) (0xE0 | (c >> 12));
+                buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeEscaped(char c) {
+        buffer[count++] = '\\';
+        switch (c) {
+            case '"' -> buffer[count++] = '"';
+            case '\\' -> buffer[count++] = '\\';
+            case '\n' -> buffer[count++] = 'n';
+            case '\r' -> buffer[count++] = 'r';
+            case '\t' -> buffer[count++] = 't';
+            default -> {
+                buffer[count++] = 'u';
+                buffer[count++] = '0';
+                buffer[count++] = '0';
+                buffer[count++] = HEX[c >> 4];
+                buffer[count++] = HEX[c & 0xF];
+            }
+        }
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        if (buffer.length - count < 20) {
+            flushBuffer();
+        }
+        if (value < 0) {
+            buffer[count++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int position = count + digits;
+        count = position;
+        do {
+            buffer[--position] = (byte) ('0' + (int) (value % 10));
+            value /= 10;
+        } while (value != 0);
+    }
+
+    private void writeAscii(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            writeByte(text.charAt(i));
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (count == buffer.length) {
+            flushBuffer();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+}
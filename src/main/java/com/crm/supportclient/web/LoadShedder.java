@@ -0,0 +1,95 @@
+package com.crm.supportclient.web;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Délestage du mode POOL : une requête refusée par le pool (file pleine) est confiée à un
+ * thread dédié qui ne fait que répondre 503 avec {@code Retry-After}, via le filtre posé sur
+ * chaque contexte. Le dispatcher de HttpServer n'exécute donc jamais de handler. Si ce
+ * thread est lui aussi débordé, le refus remonte au dispatcher, qui ferme la connexion.
+ */
+final class LoadShedder implements RejectedExecutionHandler, AutoCloseable {
+
+    private static final int FILE_DELESTAGE = 64;
+    private static final String RETRY_AFTER_SECONDES = "1";
+    private static final byte[] CORPS = "{\"error\": \"Serveur surcharge, reessayer plus tard\"}"
+        .getBytes(StandardCharsets.UTF_8);
+
+    private final ThreadPoolExecutor delestage;
+    private final AtomicLong refusees = new AtomicLong();
+    private final AtomicLong fermees = new AtomicLong();
+    private volatile Thread thread;
+
+    LoadShedder() {
+        this.delestage = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(FILE_DELESTAGE),
+            Thread.ofPlatform().name("http-shed").daemon(true).factory(),
+            new ThreadPoolExecutor.AbortPolicy());
+        this.delestage.execute(() -> thread = Thread.currentThread());
+    }
+
+    @Override
+    public void rejectedExecution(Runnable requete, ThreadPoolExecutor pool) {
+        if (pool.isShutdown()) {
+            throw new RejectedExecutionException("Serveur arrete");
+        }
+        try {
+            delestage.execute(requete);
+        } catch (RejectedExecutionException e) {
+            fermees.incrementAndGet();
+            throw e;
+        }
+    }
+
+    /** Filtre à poser sur chaque contexte : sur le thread de délestage, répond 503 sans appeler le handler. */
+    Filter filter() {
+        return new Filter() {
+            @Override
+            public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+                if (Thread.currentThread() != thread) {
+                    chain.doFilter(exchange);
+                    return;
+                }
+                refusees.incrementAndGet();
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+                exchange.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDES);
+                exchange.getResponseHeaders().set("Connection", "close");
+                exchange.sendResponseHeaders(503, CORPS.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(CORPS);
+                }
+            }
+
+            @Override
+            public String description() {
+                return "503 sur le thread de delestage";
+            }
+        };
+    }
+
+    /** Requêtes refusées par une réponse 503. */
+    long getRefusees() {
+        return refusees.get();
+    }
+
+    /** Requêtes refusées sans réponse (connexion fermée), délestage lui-même plein. */
+    long getFermees() {
+        return fermees.get();
+    }
+
+    @Override
+    public void close() {
+        delestage.shutdownNow();
+    }
+}
@@ -0,0 +1,70 @@
+package com.crm.supportclient.web;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Dernière représentation sérialisée des réponses GET, par URI, avec son étiquette (ETag).
+ * L'étiquette porte la version de la collection servie : tant qu'elle n'a pas changé, les
+ * octets sont renvoyés tels quels, sans repasser par la sérialisation. La première requête
+ * qui voit une nouvelle version remplace l'entrée. LRU borné en nombre d'entrées ; les corps
+ * trop gros ne sont pas gardés. Une variante compressée a sa propre clé et sa propre étiquette.
+ */
+public final class ResponseCache {
+
+    private final int maxEntries;
+    private final int maxBodyBytes;
+    private final Map<String, Entry> entries;
+    private long hits;
+    private long misses;
+
+    /** Octets à envoyer, compressés en gzip ou non. */
+    public record Body(byte[] bytes, boolean gzip) {
+    }
+
+    private record Entry(String etag, Body body) {
+    }
+
+    public ResponseCache(int maxEntries, int maxBodyBytes) {
+        if (maxEntries < 1 || maxBodyBytes < 0) {
+            throw new IllegalArgumentException("maxEntries >= 1 et maxBodyBytes >= 0 attendus");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBodyBytes = maxBodyBytes;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    /** Corps en cache pour cette URI et cette étiquette, ou null (absent ou périmé). */
+    public synchronized Body get(String uri, String etag) {
+        Entry entry = entries.get(uri);
+        if (entry != null && entry.etag().equals(etag)) {
+            hits++;
+            return entry.body();
+        }
+        misses++;
+        return null;
+    }
+
+    public synchronized void put(String uri, String etag, Body body) {
+        if (body.bytes().length <= maxBodyBytes) {
+            entries.put(uri, new Entry(etag, body));
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
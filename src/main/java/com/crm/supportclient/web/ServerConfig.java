@@ -0,0 +1,227 @@
+package com.crm.supportclient.web;
+
+import com.crm.supportclient.notification.NotificationSink;
+import com.crm.supportclient.observer.AsyncNotificationDispatcher;
+import com.crm.supportclient.observer.AsyncNotificationDispatcher.OverflowPolicy;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration du serveur web, lue au démarrage depuis les propriétés système.
+ *
+ * <pre>
+ *   -Dcrm.web.executor=virtual|pool|single   (défaut: virtual)
+ *   -Dcrm.web.poolSize=N                     (mode pool, défaut: nb de coeurs)
+ *   -Dcrm.web.queueCapacity=N                (mode pool, défaut: 1000)
+ *   -Dcrm.notify.async=true|false            (défaut: true)
+ *   -Dcrm.notify.workers=N                   (défaut: 4)
+ *   -Dcrm.notify.virtual=true|false          (workers en threads virtuels, défaut: true)
+ *   -Dcrm.notify.queueCapacity=N             (file par observateur, défaut: 1000)
+ *   -Dcrm.notify.overflow=BLOCK|DROP_NEWEST|DROP_OLDEST|CALLER_RUNS (défaut: BLOCK)
+ *   -Dcrm.notify.blockTimeoutMs=N            (attente maximale du thread qui publie, BLOCK sans regroupement, défaut: 100)
+ *   -Dcrm.notify.coalesceMs=N                (fenêtre de regroupement par ticket, 0 = désactivé, défaut: 200)
+ *   -Dcrm.notify.sink=console|mail|file:CHEMIN (défaut: console)
+ *   -Dcrm.notify.locale=fr|en                (langue des notifications, défaut: fr)
+ *   -Dcrm.kb.suggestBudgetMs=N               (budget des suggestions d'articles par ticket, défaut: 20)
+ *   -Dcrm.tickets.duplicateSimilarity=S      (similarité minimale d'un doublon signalé, défaut: 0.5)
+ *   -Dcrm.tickets.autoLinkSimilarity=S       (rattachement automatique au parent, 0 = désactivé, défaut: 0)
+ *   -Dcrm.stream.bufferSize=N                (trames en attente par connexion SSE avant éviction, défaut: 256)
+ *   -Dcrm.stream.heartbeatSeconds=N          (silence maximal sur une connexion SSE, défaut: 15)
+ *   -Dcrm.stream.writeTimeoutMs=N            (écriture SSE bloquée au-delà : client évincé, défaut: 2000)
+ *   -Dcrm.web.gzipThreshold=N                (réponse JSON compressée au-delà de N octets, -1 = jamais, défaut: 1024)
+ * </pre>
+ */
+public class ServerConfig {
+
+    /** Mode d'exécution des HttpHandler. */
+    public enum ExecutorMode {
+        /** Un thread virtuel par requête. */
+        VIRTUAL,
+        /** Pool borné de threads plateforme avec file d'attente bornée. */
+        POOL,
+        /** Thread unique du dispatcher HttpServer (comportement historique). */
+        SINGLE
+    }
+
+    private final int port;
+    private final ExecutorMode executorMode;
+    private final int poolSize;
+    private final int queueCapacity;
+    private boolean notifyAsync = true;
+    private int notifyWorkers = 4;
+    private boolean notifyVirtualThreads = true;
+    private int notifyQueueCapacity = 1000;
+    private OverflowPolicy notifyOverflowPolicy = OverflowPolicy.BLOCK;
+    private long notifyBlockTimeoutMillis = 100;
+    private long notifyCoalesceMillis = 200;
+    private NotificationSink notificationSink = NotificationSink.CONSOLE;
+    private Locale notificationLocale = Locale.FRENCH;
+    private long kbSuggestBudgetMillis = 20;
+    private double duplicateSimilarity = 0.5;
+    private double autoLinkSimilarity = 0;
+    private int streamBufferSize = 256;
+    private long streamHeartbeatSeconds = 15;
+    private long streamWriteTimeoutMillis = 2000;
+    private int gzipThreshold = 1024;
+
+    public ServerConfig(int port, ExecutorMode executorMode, int poolSize, int queueCapacity) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("poolSize doit etre >= 1: " + poolSize);
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity doit etre >= 1: " + queueCapacity);
+        }
+        this.port = port;
+        this.executorMode = executorMode;
+        this.poolSize = poolSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /** Construit la configuration à partir des propriétés système {@code crm.*}. */
+    public static ServerConfig fromSystemProperties(int port) {
+        String mode = System.getProperty("crm.web.executor", "virtual");
+        ServerConfig config = new ServerConfig(
+            port,
+            ExecutorMode.valueOf(mode.trim().toUpperCase()),
+            Integer.getInteger("crm.web.poolSize", Runtime.getRuntime().availableProcessors()),
+            Integer.getInteger("crm.web.queueCapacity", 1000)
+        );
+        config.notifyAsync = Boolean.parseBoolean(System.getProperty("crm.notify.async", "true"));
+        config.notifyWorkers = Integer.getInteger("crm.notify.workers", config.notifyWorkers);
+        config.notifyVirtualThreads = Boolean.parseBoolean(System.getProperty("crm.notify.virtual", "true"));
+        config.notifyQueueCapacity = Integer.getInteger("crm.notify.queueCapacity", config.notifyQueueCapacity);
+        config.notifyOverflowPolicy = OverflowPolicy.valueOf(
+            System.getProperty("crm.notify.overflow", config.notifyOverflowPolicy.name()).trim().toUpperCase());
+        config.notifyBlockTimeoutMillis = Long.getLong("crm.notify.blockTimeoutMs", config.notifyBlockTimeoutMillis);
+        config.notifyCoalesceMillis = Long.getLong("crm.notify.coalesceMs", config.notifyCoalesceMillis);
+        config.notificationSink = NotificationSink.parse(System.getProperty("crm.notify.sink", "console"));
+        config.notificationLocale = Locale.forLanguageTag(System.getProperty("crm.notify.locale", "fr"));
+        config.kbSuggestBudgetMillis = Long.getLong("crm.kb.suggestBudgetMs", config.kbSuggestBudgetMillis);
+        config.duplicateSimilarity = Double.parseDouble(
+            System.getProperty("crm.tickets.duplicateSimilarity", String.valueOf(config.duplicateSimilarity)));
+        config.autoLinkSimilarity = Double.parseDouble(
+            System.getProperty("crm.tickets.autoLinkSimilarity", String.valueOf(config.autoLinkSimilarity)));
+        config.streamBufferSize = Integer.getInteger("crm.stream.bufferSize", config.streamBufferSize);
+        config.streamHeartbeatSeconds = Long.getLong("crm.stream.heartbeatSeconds", config.streamHeartbeatSeconds);
+        config.streamWriteTimeoutMillis = Long.getLong("crm.stream.writeTimeoutMs", config.streamWriteTimeoutMillis);
+        config.gzipThreshold = Integer.getInteger("crm.web.gzipThreshold", config.gzipThreshold);
+        return config;
+    }
+
+    /** Crée le dispatcher asynchrone, ou {@code null} si les notifications restent synchrones. */
+    AsyncNotificationDispatcher createNotificationDispatcher() {
+        if (!notifyAsync) {
+            return null;
+        }
+        return new AsyncNotificationDispatcher(
+            notifyWorkers, notifyVirtualThreads, notifyQueueCapacity,
+            notifyOverflowPolicy, notifyBlockTimeoutMillis
+        );
+    }
+
+    /**
+     * Crée l'executor correspondant au mode, ou {@code null} pour le mode SINGLE
+     * (HttpServer utilise alors son thread de dispatch).
+     * En mode POOL, une requête arrivant file pleine est confiée à {@code onFull} : jamais
+     * exécutée par le dispatcher, qui doit rester libre d'accepter les connexions.
+     */
+    ExecutorService createExecutor(RejectedExecutionHandler onFull) {
+        return switch (executorMode) {
+            case VIRTUAL -> Executors.newVirtualThreadPerTaskExecutor();
+            case POOL -> new ThreadPoolExecutor(
+                poolSize, poolSize,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                onFull
+            );
+            case SINGLE -> null;
+        };
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public ExecutorMode getExecutorMode() {
+        return executorMode;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public boolean isNotifyAsync() {
+        return notifyAsync;
+    }
+
+    public int getNotifyWorkers() {
+        return notifyWorkers;
+    }
+
+    public OverflowPolicy getNotifyOverflowPolicy() {
+        return notifyOverflowPolicy;
+    }
+
+    public NotificationSink getNotificationSink() {
+        return notificationSink;
+    }
+
+    public Locale getNotificationLocale() {
+        return notificationLocale;
+    }
+
+    /** Fenêtre de regroupement des notifications, 0 si désactivé. */
+    public long getNotifyCoalesceMillis() {
+        return notifyCoalesceMillis;
+    }
+
+    /** Temps maximal accordé à la recherche d'articles pour un brouillon de ticket. */
+    public long getKbSuggestBudgetMillis() {
+        return kbSuggestBudgetMillis;
+    }
+
+    /** Similarité (0..1) à partir de laquelle un ticket ouvert est signalé comme doublon. */
+    public double getDuplicateSimilarity() {
+        return duplicateSimilarity;
+    }
+
+    /** Similarité à partir de laquelle un doublon est rattaché à son parent, 0 si désactivé. */
+    public double getAutoLinkSimilarity() {
+        return autoLinkSimilarity;
+    }
+
+    /** Crée la diffusion SSE de {@code /api/stream}. */
+    EventStream createEventStream() {
+        return new EventStream(streamBufferSize,
+            TimeUnit.SECONDS.toMillis(streamHeartbeatSeconds), streamWriteTimeoutMillis);
+    }
+
+    /** Trames en attente tolérées par connexion SSE avant d'évincer le client lent. */
+    public int getStreamBufferSize() {
+        return streamBufferSize;
+    }
+
+    /** Taille à partir de laquelle une réponse JSON part en gzip, si le client l'accepte ; -1 = jamais. */
+    public int getGzipThreshold() {
+        return gzipThreshold;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "ServerConfig{port=%d, executor=%s, poolSize=%d, queueCapacity=%d, notifyAsync=%s, notifyWorkers=%d, notifyOverflow=%s, notifyCoalesceMs=%d}",
+            port, executorMode, poolSize, queueCapacity, notifyAsync, notifyWorkers, notifyOverflowPolicy,
+            notifyCoalesceMillis
+        );
+    }
+}
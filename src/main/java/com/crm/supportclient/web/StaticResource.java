@@ -0,0 +1,96 @@
+package com.crm.supportclient.web;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ressource statique rendue une fois au démarrage : octets UTF-8 et variante gzip
+ * (compression maximale) précalculés, ETag dérivée du contenu. Une requête ne fait que
+ * choisir la variante selon {@code Accept-Encoding}, ou répondre 304.
+ */
+public final class StaticResource {
+
+    private final String contentType;
+    private final String cacheControl;
+    private final byte[] identity;
+    private final byte[] gzip;
+    private final String etag;
+
+    private StaticResource(String contentType, String cacheControl, byte[] identity) {
+        this.contentType = contentType;
+        this.cacheControl = cacheControl;
+        this.identity = identity;
+        this.gzip = compress(identity);
+        this.etag = "\"" + digest(identity) + "\"";
+    }
+
+    /** Texte encodé en UTF-8 ; {@code contentType} sans le charset. */
+    public static StaticResource text(String contentType, String cacheControl, String text) {
+        return new StaticResource(contentType + "; charset=UTF-8", cacheControl,
+            text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void send(HttpExchange exchange) throws IOException {
+        boolean gzipped = gzip.length < identity.length
+            && ContentNegotiation.acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        String tag = gzipped ? ContentNegotiation.gzipVariant(etag) : etag;
+        exchange.getResponseHeaders().set("ETag", tag);
+        exchange.getResponseHeaders().set("Cache-Control", cacheControl);
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        if (ContentNegotiation.etagMatches(exchange.getRequestHeaders().getFirst("If-None-Match"), tag)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = gzipped ? gzip : identity;
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        if (gzipped) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    public int size() {
+        return identity.length;
+    }
+
+    public int gzipSize() {
+        return gzip.length;
+    }
+
+    private static byte[] compress(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String digest(byte[] bytes) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -3,10 +3,33 @@ package com.crm.supportclient.web;
 import com.crm.supportclient.external.Client;
 import com.crm.supportclient.external.SupportClient;
 import com.crm.supportclient.model.ArticleBaseConnaissance;
+import com.crm.supportclient.model.ConflitVersionException;
+import com.crm.supportclient.model.StatutTicket;
 import com.crm.supportclient.model.Ticket;
+import com.crm.supportclient.model.TicketChangeLog;
+import com.crm.supportclient.observer.AsyncNotificationDispatcher;
 import com.crm.supportclient.observer.ClientNotification;
+import com.crm.supportclient.observer.CoalescingNotificationDispatcher;
+import com.crm.supportclient.observer.NotificationDispatcher;
+import com.crm.supportclient.observer.SubscriptionRegistry;
+import com.crm.supportclient.observer.SubscriptionRegistry.Topic;
 import com.crm.supportclient.observer.SupportNotification;
+import com.crm.supportclient.repository.InMemoryTicketRepository;
+import com.crm.supportclient.repository.TicketRepository;
+import com.crm.supportclient.search.ArticleIndex;
+import com.crm.supportclient.search.ClientTicketIndex;
+import com.crm.supportclient.search.DuplicateTicketDetector;
+import com.crm.supportclient.search.InvertedIndex;
+import com.crm.supportclient.search.PrefixTrie;
+import com.crm.supportclient.search.RoaringBitmap;
+import com.crm.supportclient.search.TextAnalyzer;
+import com.crm.supportclient.search.TicketBitmapIndex;
+import com.crm.supportclient.search.TicketIndex;
+import com.crm.supportclient.search.TicketSortIndex;
 import com.crm.supportclient.service.PortailClient;
+import com.crm.supportclient.state.ActionTicket;
+import com.crm.supportclient.state.MachineEtats;
+import com.sun.net.httpserver.HttpContext;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
@@ -15,31 +38,102 @@ import java.io.*;
 import java.net.InetSocketAddress;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
 /** Serveur web pour tester le module Support Client. */
 public class WebServer {
 
+    /** Nombre d'articles proposés pour un ticket. */
+    private static final int TICKET_SUGGESTIONS = 3;
+    /** Événements conservés pour les lecteurs en retard ; le tableau de bord en affiche 50. */
+    private static final int EVENT_LOG_CAPACITY = 1024;
+    private static final int RESPONSE_CACHE_ENTRIES = 512;
+    private static final int RESPONSE_CACHE_MAX_BODY = 1 << 20;
+    private static final int EVENTS_SHOWN = 50;
+    /** Changements lus à la fois dans le journal pour les diffuser sur {@code /api/stream}. */
+    private static final int STREAM_BATCH = 256;
+    private static final DateTimeFormatter HEURE = DateTimeFormatter.ofPattern("HH:mm:ss");
+    /** Champs d'un ticket en JSON, dans l'ordre de sérialisation ({@code fields=} en choisit une partie). */
+    private static final Set<String> TICKET_FIELDS = Collections.unmodifiableSet(new LinkedHashSet<>(List.of(
+        "id", "titre", "description", "priorite", "statut", "etat", "solution",
+        "version", "changeVersion", "clientId", "parentId", "dateCreation")));
+
     private final HttpServer server;
+    private final ServerConfig config;
+    private final ExecutorService executor;
+    /** Réponses 503 quand le pool est plein (mode POOL seulement, null sinon). */
+    private final LoadShedder loadShedder;
+    private final AsyncNotificationDispatcher notificationDispatcher;
+    private final CoalescingNotificationDispatcher notificationCoalescer;
+    private final SubscriptionRegistry subscriptions;
     private final PortailClient portail;
-    private final Map<Integer, Ticket> tickets;
+    private final TicketRepository ticketRepository;
     private final Map<Integer, Client> clients;
     private final Map<String, SupportClient> supportAgents;
-    private final List<String> eventLog;
+    private final EventLog eventLog;
+    private final EventStream eventStream;
+    private final TicketChangeLog changeLog;
+    /** Drain des changements vers {@code /api/stream} : un seul thread à la fois le mène. */
+    private final AtomicInteger streamDrains = new AtomicInteger();
+    /** Dernière version du journal diffusée ; lue et écrite par le seul thread qui draine. */
+    private long streamVersion;
+    private final ResponseCache responseCache = new ResponseCache(RESPONSE_CACHE_ENTRIES, RESPONSE_CACHE_MAX_BODY);
+    /** Préfixe des ETags : les versions repartent de zéro à chaque démarrage. */
+    private final String etagEpoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong notModified = new AtomicLong();
+    /** Page d'accueil, rendue et compressée une fois pour toutes. */
+    private final StaticResource indexPage =
+        StaticResource.text("text/html", "no-cache", getIndexHtml());
 
     public WebServer(int port) throws IOException {
-        server = HttpServer.create(new InetSocketAddress(port), 0);
-        portail = new PortailClient();
-        tickets = new HashMap<>();
+        this(ServerConfig.fromSystemProperties(port));
+    }
+
+    public WebServer(ServerConfig config) throws IOException {
+        this.config = config;
+        // Headers and body leave in separate writes: without TCP_NODELAY a keep-alive response
+        // waits for the client's delayed ACK (~40 ms). Read once, when the first server is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress(config.getPort()), 0);
+        ticketRepository = new InMemoryTicketRepository();
+        portail = new PortailClient(ticketRepository,
+            new DuplicateTicketDetector(TextAnalyzer.FRANCAIS, config.getDuplicateSimilarity()));
+        portail.setSeuilLiaisonDoublon(config.getAutoLinkSimilarity());
         clients = new HashMap<>();
         supportAgents = new HashMap<>();
-        eventLog = new CopyOnWriteArrayList<>();
+        eventLog = new EventLog(EVENT_LOG_CAPACITY);
+        eventStream = config.createEventStream();
+        changeLog = new TicketChangeLog();
+        changeLog.setPublicationListener(this::streamChanges);
+        Ticket.setChangeLog(changeLog);
 
+        // Notifications: [coalescing per ticket] -> [subscription lookup] -> [async per-observer queues] -> observers
+        notificationDispatcher = config.createNotificationDispatcher();
+        subscriptions = new SubscriptionRegistry(notificationDispatcher != null
+            ? notificationDispatcher : NotificationDispatcher.SYNCHRONE);
+        notificationCoalescer = config.getNotifyCoalesceMillis() > 0
+            ? new CoalescingNotificationDispatcher(subscriptions, config.getNotifyCoalesceMillis())
+            : null;
+        Ticket.setNotificationDispatcher(notificationCoalescer != null ? notificationCoalescer : subscriptions);
+
+        loadShedder = config.getExecutorMode() == ServerConfig.ExecutorMode.POOL ? new LoadShedder() : null;
         initializeSampleData();
         setupRoutes();
 
-        server.setExecutor(null);
+        executor = config.createExecutor(loadShedder);
+        server.setExecutor(executor);
     }
 
     private void initializeSampleData() {
@@ -55,6 +149,23 @@ public class WebServer {
         supportAgents.put("pierre", agent1);
         supportAgents.put("sophie", agent2);
 
+        // One observer per client / agent, subscribed once instead of attached to every ticket
+        for (Client client : clients.values()) {
+            subscriptions.subscribe(Topic.client(client.getId()), new ClientNotification(
+                client.getId(), client.getEmail(), config.getNotificationLocale(), config.getNotificationSink()));
+        }
+        for (SupportClient agent : List.of(agent1, agent2)) {
+            SupportNotification agentNotif = new SupportNotification(agent.getId(), agent.getNom(), agent.getEmail(),
+                config.getNotificationLocale(), config.getNotificationSink());
+            subscriptions.subscribe(Topic.agent(agent.getId()), agentNotif);
+            if (agent == agent1) {
+                // Generic support agent, notified of every ticket
+                subscriptions.subscribe(Topic.tous(), agentNotif);
+            }
+        }
+        // Search indexes and /api/stream are not subscribed here: they follow every change synchronously
+        // (PortailClient for the indexes, the change log's publication listener for the stream)
+
         // Create sample knowledge base articles
         portail.ajouterArticle(new ArticleBaseConnaissance(
             "Comment réinitialiser mon mot de passe?",
@@ -69,17 +180,33 @@ public class WebServer {
             "Retrouvez ici les réponses aux questions les plus fréquemment posées par nos utilisateurs."
         ));
 
-        logEvent("[START] Systeme initialise avec donnees de demonstration");
+        logEvent("START", null, null, "Systeme initialise avec donnees de demonstration");
     }
 
     private void setupRoutes() {
-        server.createContext("/", new StaticFileHandler());
-        server.createContext("/api/tickets", new TicketHandler());
-        server.createContext("/api/tickets/action", new TicketActionHandler());
-        server.createContext("/api/articles", new ArticleHandler());
-        server.createContext("/api/events", new EventHandler());
-        server.createContext("/api/clients", new ClientHandler());
-        server.createContext("/api/agents", new AgentHandler());
+        route("/", new StaticFileHandler());
+        route("/api/tickets", new TicketHandler());
+        route("/api/tickets/action", new TicketActionHandler());
+        route("/api/tickets/suggest", new TicketSuggestHandler());
+        route("/api/tickets/search", new TicketSearchHandler());
+        route("/api/tickets/query", new TicketQueryHandler());
+        route("/api/articles", new ArticleHandler());
+        route("/api/articles/search", new ArticleSearchHandler());
+        route("/api/articles/suggest", new ArticleSuggestHandler());
+        route("/api/events", new EventHandler());
+        route("/api/stream", new StreamHandler());
+        route("/api/clients", new ClientHandler());
+        route("/api/agents", new AgentHandler());
+        route("/api/states", new StateMachineHandler());
+        route("/api/notifications/metrics", new NotificationMetricsHandler());
+    }
+
+    /** Contexte avec le filtre de délestage en mode POOL. */
+    private void route(String path, HttpHandler handler) {
+        HttpContext context = server.createContext(path, handler);
+        if (loadShedder != null) {
+            context.getFilters().add(loadShedder.filter());
+        }
     }
 
     public void start() {
@@ -87,16 +214,91 @@ public class WebServer {
         System.out.println("\n" + "=".repeat(60));
         System.out.println("[SERVER] Web Server started at http://localhost:" + server.getAddress().getPort());
         System.out.println("   Open this URL in your browser to test the application!");
+        System.out.println("   " + config);
+        System.out.println("   Similarite des articles: " + portail.getBaseConnaissance().getVectors().getKernelName());
+        System.out.println("   Page d'accueil: " + indexPage.size() + " octets, " + indexPage.gzipSize() + " en gzip");
         System.out.println("=".repeat(60) + "\n");
     }
 
-    private void logEvent(String message) {
-        String timestamp = java.time.LocalDateTime.now()
-            .format(java.time.format.DateTimeFormatter.ofPattern("HH:mm:ss"));
-        eventLog.add(0, "[" + timestamp + "] " + message);
-        if (eventLog.size() > 50) {
-            eventLog.remove(eventLog.size() - 1);
+    public void stop(int delaySeconds) {
+        // Open streams would otherwise hold server.stop for the whole delay
+        eventStream.close();
+        server.stop(delaySeconds);
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (loadShedder != null) {
+            loadShedder.close();
+        }
+        if (notificationCoalescer != null) {
+            notificationCoalescer.close();
+        }
+        if (notificationDispatcher != null) {
+            notificationDispatcher.close();
+        }
+        Ticket.setNotificationDispatcher(null);
+        changeLog.setPublicationListener(null);
+        Ticket.setChangeLog(null);
+    }
+
+    /**
+     * Diffuse sur {@code /api/stream}, dans l'ordre des versions, tout ce que le journal a publié
+     * depuis la dernière diffusion. Appelé par chaque thread qui enregistre un changement ; si un
+     * autre draine déjà, il est seulement prié de refaire un tour.
+     */
+    private void streamChanges() {
+        if (streamDrains.getAndIncrement() != 0) {
+            return;
+        }
+        int pending = 1;
+        do {
+            TicketChangeLog.Delta delta;
+            do {
+                delta = changeLog.since(streamVersion, STREAM_BATCH);
+                try {
+                    changeFrames(delta.changes()).forEach(eventStream::publish);
+                } catch (RuntimeException e) {
+                    System.err.println("[STREAM] Diffusion interrompue jusqu'a la version " + delta.version()
+                        + ": " + e.getMessage());
+                }
+                streamVersion = delta.version();
+            } while (delta.suite());
+            pending = streamDrains.addAndGet(-pending);
+        } while (pending != 0);
+    }
+
+    /**
+     * Trames {@code ticket} (état courant) et {@code removed} (pierre tombale) des changements,
+     * identifiées par le jeton de leur version : c'est le {@code Last-Event-ID} de la reprise.
+     */
+    private List<EventStream.Frame> changeFrames(List<TicketChangeLog.Change> changes) {
+        List<EventStream.Frame> frames = new ArrayList<>(changes.size());
+        for (TicketChangeLog.Change change : changes) {
+            String id = changeLog.jeton(change.version());
+            if (change.estPierreTombale()) {
+                frames.add(new EventStream.Frame(id, "removed", toJson(json ->
+                    writeTombstone(json, change.ticketId(), change.nature(), change.version()))));
+                continue;
+            }
+            // Removed since the change was read: its tombstone follows
+            Ticket ticket = ticketRepository.findById(change.ticketId());
+            if (ticket != null) {
+                frames.add(new EventStream.Frame(id, "ticket", toJson(json -> writeTicket(json, ticket))));
+            }
         }
+        return frames;
+    }
+
+    /** Publie un événement du tableau de bord ; {@code ticket} null hors d'un ticket. */
+    private void logEvent(String type, Ticket ticket, StatutTicket from, String message) {
+        EventLog.Event event = eventLog.append(type, ticket != null ? ticket.getId() : 0, from,
+            ticket != null ? ticket.getStatut() : null, message);
+        eventStream.publish("log", toJson(json -> writeEvent(json, event)));
     }
 
     class StaticFileHandler implements HttpHandler {
@@ -111,13 +313,7 @@ public class WebServer {
         }
 
         private void sendHtmlPage(HttpExchange exchange) throws IOException {
-            String html = getIndexHtml();
-            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
-            byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
-            exchange.sendResponseHeaders(200, bytes.length);
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(bytes);
-            }
+            indexPage.send(exchange);
         }
 
         private void send404(HttpExchange exchange) throws IOException {
@@ -130,6 +326,9 @@ public class WebServer {
     }
 
     class TicketHandler implements HttpHandler {
+        private static final int DEFAULT_LIMIT = 50;
+        private static final int MAX_LIMIT = 500;
+
         @Override
         public void handle(HttpExchange exchange) throws IOException {
             String method = exchange.getRequestMethod();
@@ -138,21 +337,201 @@ public class WebServer {
                 handleGetTickets(exchange);
             } else if ("POST".equals(method)) {
                 handleCreateTicket(exchange);
+            } else if ("DELETE".equals(method)) {
+                handleDeleteTicket(exchange);
             } else {
                 exchange.sendResponseHeaders(405, -1);
             }
         }
 
+        /**
+         * {@code GET /api/tickets?sort=id|date|priorite&order=asc|desc&limit=50&cursor=&fields=id,titre}.
+         * Le curseur renvoyé ({@code nextCursor}) reprend juste après le dernier ticket de la page ;
+         * {@code version} est le jeton à passer ensuite à {@code sinceVersion}.
+         */
         private void handleGetTickets(HttpExchange exchange) throws IOException {
-            StringBuilder json = new StringBuilder("[");
-            boolean first = true;
-            for (Ticket ticket : tickets.values()) {
-                if (!first) json.append(",");
-                json.append(ticketToJson(ticket));
-                first = false;
+            Map<String, String> params = parseQuery(exchange);
+            if (params.containsKey("sinceVersion")) {
+                handleTicketChanges(exchange, params);
+                return;
+            }
+            TicketSortIndex.Tri tri;
+            boolean descendant;
+            int limit;
+            TicketSortIndex.Cle apres;
+            Set<String> fields;
+            try {
+                tri = parseTri(params.getOrDefault("sort", "id"));
+                descendant = parseOrdre(params.getOrDefault("order", "asc"));
+                limit = Integer.parseInt(params.getOrDefault("limit", String.valueOf(DEFAULT_LIMIT)));
+                apres = params.containsKey("cursor") ? decodeCursor(params.get("cursor"), tri, descendant) : null;
+                fields = parseFields(params.get("fields"));
+            } catch (IllegalArgumentException e) {
+                sendJsonResponse(exchange, 400, "{\"error\": \"" + escapeJson(e.getMessage()) + "\"}");
+                return;
+            }
+            if (limit < 1 || limit > MAX_LIMIT) {
+                sendJsonResponse(exchange, 400, "{\"error\": \"1 <= limit <= " + MAX_LIMIT + " attendu\"}");
+                return;
             }
-            json.append("]");
-            sendJsonResponse(exchange, json.toString());
+
+            long version = changeLog.version();
+            String etag = etag("t", version);
+            if (notModified(exchange, etag)) {
+                return;
+            }
+            TicketSortIndex.Page page = portail.getTriTickets().page(tri, descendant, apres, limit);
+            sendCached(exchange, etag, json -> {
+                json.beginObject().name("tickets").beginArray();
+                for (int ticketId : page.ticketIds()) {
+                    Ticket ticket = ticketRepository.findById(ticketId);
+                    if (ticket == null) continue;
+                    json.beginObject();
+                    writeTicketFields(json, ticket, fields);
+                    json.endObject();
+                }
+                json.endArray().name("nextCursor")
+                    .value(page.suivante() == null ? null : encodeCursor(page.suivante(), tri, descendant))
+                    .name("version").value(changeLog.jeton(version))
+                    .endObject();
+            });
+        }
+
+        /**
+         * {@code GET /api/tickets?sinceVersion=<jeton>&limit=500&fields=} : tickets créés ou
+         * modifiés après la version du jeton, dans leur état courant, et pierres tombales des
+         * tickets supprimés ou archivés. Le client repart du jeton {@code version} à l'appel
+         * suivant (tout de suite si {@code more}). Un jeton d'une autre instance (serveur
+         * redémarré) ou inconnu renvoie tout, avec {@code reset}.
+         */
+        private void handleTicketChanges(HttpExchange exchange, Map<String, String> params) throws IOException {
+            long since;
+            int limit;
+            Set<String> fields;
+            try {
+                since = changeLog.versionDuJeton(params.get("sinceVersion"));
+                limit = Integer.parseInt(params.getOrDefault("limit", String.valueOf(MAX_LIMIT)));
+                fields = parseFields(params.get("fields"));
+            } catch (IllegalArgumentException e) {
+                sendJsonResponse(exchange, 400, "{\"error\": \"" + escapeJson(e.getMessage()) + "\"}");
+                return;
+            }
+            if (limit < 1 || limit > MAX_LIMIT) {
+                sendJsonResponse(exchange, 400, "{\"error\": \"1 <= limit <= " + MAX_LIMIT + " attendu\"}");
+                return;
+            }
+
+            long version = changeLog.version();
+            String etag = etag("t", version);
+            if (notModified(exchange, etag)) {
+                return;
+            }
+            boolean reset = since < 0;
+            TicketChangeLog.Delta delta = changeLog.since(reset ? 0 : since, limit);
+            sendCached(exchange, etag, json -> {
+                json.beginObject()
+                    .name("version").value(changeLog.jeton(delta.version()))
+                    .name("more").value(delta.suite())
+                    .name("reset").value(reset)
+                    .name("tickets").beginArray();
+                for (TicketChangeLog.Change change : delta.changes()) {
+                    if (change.estPierreTombale()) continue;
+                    // Removed since the delta was read: its tombstone comes with the next call
+                    Ticket ticket = ticketRepository.findById(change.ticketId());
+                    if (ticket == null) continue;
+                    json.beginObject();
+                    writeTicketFields(json, ticket, fields);
+                    json.endObject();
+                }
+                json.endArray().name("tombstones").beginArray();
+                for (TicketChangeLog.Change change : delta.changes()) {
+                    if (change.estPierreTombale()) {
+                        writeTombstone(json, change.ticketId(), change.nature(), change.version());
+                    }
+                }
+                json.endArray().endObject();
+            });
+        }
+
+        /** {@code DELETE /api/tickets?id=<id>[&archive=true]} : suppression, ou archivage d'un ticket fermé. */
+        private void handleDeleteTicket(HttpExchange exchange) throws IOException {
+            Map<String, String> params = parseQuery(exchange);
+            int ticketId;
+            try {
+                ticketId = Integer.parseInt(params.getOrDefault("id", ""));
+            } catch (NumberFormatException e) {
+                sendJsonResponse(exchange, 400, "{\"error\": \"id doit etre un entier\"}");
+                return;
+            }
+            boolean archive = Boolean.parseBoolean(params.get("archive"));
+            Ticket ticket = ticketRepository.findById(ticketId);
+            if (ticket == null) {
+                sendJsonResponse(exchange, 404, "{\"error\": \"Ticket not found\"}");
+                return;
+            }
+
+            TicketChangeLog.Nature nature = archive ? TicketChangeLog.Nature.ARCHIVE : TicketChangeLog.Nature.SUPPRIME;
+            long version;
+            try {
+                version = archive ? portail.archiverTicket(ticketId) : portail.supprimerTicket(ticketId);
+            } catch (IllegalStateException e) {
+                sendJsonResponse(exchange, 409, "{\"error\": \"" + escapeJson(e.getMessage()) + "\"}");
+                return;
+            }
+            if (version < 0) {
+                sendJsonResponse(exchange, 404, "{\"error\": \"Ticket not found\"}");
+                return;
+            }
+            logEvent(archive ? "ARCHIVED" : "DELETED", ticket, null,
+                "Ticket #" + ticketId + (archive ? " archive" : " supprime"));
+            sendJson(exchange, json -> writeTombstone(json, ticketId, nature, version));
+        }
+
+        private TicketSortIndex.Tri parseTri(String value) {
+            return switch (value.toLowerCase(Locale.ROOT)) {
+                case "id" -> TicketSortIndex.Tri.ID;
+                case "date" -> TicketSortIndex.Tri.DATE;
+                case "priorite", "priority" -> TicketSortIndex.Tri.PRIORITE;
+                default -> throw new IllegalArgumentException("Tri inconnu: " + value);
+            };
+        }
+
+        private boolean parseOrdre(String value) {
+            return switch (value.toLowerCase(Locale.ROOT)) {
+                case "asc" -> false;
+                case "desc" -> true;
+                default -> throw new IllegalArgumentException("Ordre inconnu: " + value);
+            };
+        }
+
+        /** Champs demandés, dans l'ordre de {@link #TICKET_FIELDS} ; tous si absent. */
+        private Set<String> parseFields(String value) {
+            if (value == null || value.isBlank()) {
+                return TICKET_FIELDS;
+            }
+            Set<String> fields = new LinkedHashSet<>();
+            for (String field : splitValues(value)) {
+                if (!TICKET_FIELDS.contains(field)) {
+                    throw new IllegalArgumentException("Champ inconnu: " + field);
+                }
+                fields.add(field);
+            }
+            return fields;
+        }
+
+        /** Curseur opaque : tri, ordre et dernière clé renvoyée, en base64 URL. */
+        private String encodeCursor(TicketSortIndex.Cle cle, TicketSortIndex.Tri tri, boolean descendant) {
+            String raw = tri.name() + ":" + (descendant ? "desc" : "asc") + ":" + cle.valeur() + ":" + cle.id();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private TicketSortIndex.Cle decodeCursor(String cursor, TicketSortIndex.Tri tri, boolean descendant) {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 4 || !parts[0].equals(tri.name())
+                    || !parts[1].equals(descendant ? "desc" : "asc")) {
+                throw new IllegalArgumentException("Curseur invalide pour ce tri");
+            }
+            return new TicketSortIndex.Cle(Long.parseLong(parts[2]), Integer.parseInt(parts[3]));
         }
 
         private void handleCreateTicket(HttpExchange exchange) throws IOException {
@@ -164,33 +543,266 @@ public class WebServer {
             int clientId = Integer.parseInt(params.getOrDefault("clientId", "1"));
 
             Ticket ticket = new Ticket(titre, description, priorite);
+            // Observers are resolved through the subscription registry (client, assigned agent, all tickets)
+            ticket.setClientId(clientId);
             
-            // Attach observers
-            Client client = clients.get(clientId);
-            if (client != null) {
-                ClientNotification clientNotif = new ClientNotification(client.getId(), client.getEmail());
-                ticket.attach(clientNotif);
-            }
-            
-            // Attach support notification (using a generic support agent for initial notifications)
-            SupportClient defaultAgent = supportAgents.values().iterator().next();
-            SupportNotification supportNotif = new SupportNotification(
-                defaultAgent.getId(), 
-                defaultAgent.getNom(), 
-                defaultAgent.getEmail()
-            );
-            ticket.attach(supportNotif);
-            
+            // Saved before creer(): a change-feed reader never sees a version for a ticket it cannot load
+            List<DuplicateTicketDetector.Candidate> duplicates = portail.ajouterTicket(clientId, ticket);
             ticket.creer();
-            tickets.put(ticket.getId(), ticket);
-            portail.ajouterTicket(clientId, ticket);
             
-            logEvent("[TICKET] Ticket #" + ticket.getId() + " cree: " + titre + " (Priorite: " + priorite + ")");
-            
-            sendJsonResponse(exchange, ticketToJson(ticket));
+            logEvent("TICKET", ticket, null, "Ticket #" + ticket.getId() + " cree: " + titre + " (Priorite: " + priorite + ")");
+
+            // Articles proposés au client en réponse, au cas où ils résoudraient le problème
+            ArticleIndex.TicketSuggestions suggestions = suggestArticles(titre, description);
+            sendJson(exchange, json -> {
+                json.beginObject();
+                writeTicketFields(json, ticket, TICKET_FIELDS);
+                json.name("suggestedArticles");
+                writeTicketSuggestions(json, suggestions);
+                json.name("duplicates").beginArray();
+                for (DuplicateTicketDetector.Candidate duplicate : duplicates) {
+                    Ticket original = ticketRepository.findById(duplicate.ticketId());
+                    if (original == null) continue;
+                    json.beginObject()
+                        .name("id").value(original.getId())
+                        .name("titre").value(orEmpty(original.getTitre()))
+                        .name("similarity").value(duplicate.similarity(), 2)
+                        .endObject();
+                }
+                json.endArray().endObject();
+            });
         }
     }
 
+    /**
+     * Suggestions d'articles pour un brouillon de ticket, avant sa création :
+     * {@code GET ?titre=&description=} ou {@code POST} du formulaire.
+     */
+    class TicketSuggestHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            Map<String, String> params;
+            if ("GET".equals(method)) {
+                params = parseQuery(exchange);
+            } else if ("POST".equals(method)) {
+                params = parseFormData(exchange);
+            } else {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            ArticleIndex.TicketSuggestions suggestions =
+                suggestArticles(params.getOrDefault("titre", ""), params.getOrDefault("description", ""));
+            sendJson(exchange, json -> writeTicketSuggestions(json, suggestions));
+        }
+    }
+
+    /**
+     * Recherche plein texte des tickets :
+     * {@code GET /api/tickets/search?q=...&statut=&priorite=&agent=&page=1&size=20}.
+     */
+    class TicketSearchHandler implements HttpHandler {
+        private static final int DEFAULT_SIZE = 20;
+        private static final int MAX_SIZE = 100;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            Map<String, String> params = parseQuery(exchange);
+            String query = params.getOrDefault("q", "");
+            TicketIndex.Filtres filtres;
+            int page;
+            int size;
+            try {
+                filtres = new TicketIndex.Filtres(
+                    parseStatut(params.get("statut")),
+                    emptyToNull(params.get("priorite")),
+                    parseAgent(params.get("agent")));
+                page = Integer.parseInt(params.getOrDefault("page", "1"));
+                size = Integer.parseInt(params.getOrDefault("size", String.valueOf(DEFAULT_SIZE)));
+            } catch (IllegalArgumentException e) {
+                sendJsonResponse(exchange, 400, "{\"error\": \"" + escapeJson(e.getMessage()) + "\"}");
+                return;
+            }
+            if (page < 1 || size < 1 || size > MAX_SIZE) {
+                sendJsonResponse(exchange, 400,
+                    "{\"error\": \"page >= 1 et 1 <= size <= " + MAX_SIZE + " attendus\"}");
+                return;
+            }
+            if (query.isBlank() && filtres.equals(TicketIndex.Filtres.AUCUN)) {
+                sendJsonResponse(exchange, 400, "{\"error\": \"q ou un filtre (statut, priorite, agent) requis\"}");
+                return;
+            }
+
+            InvertedIndex.TopDocs result = portail.getIndexTickets()
+                .search(query, filtres, (int) Math.min(Integer.MAX_VALUE, (long) (page - 1) * size), size);
+
+            sendJson(exchange, json -> {
+                json.beginObject()
+                    .name("query").value(query)
+                    .name("page").value(page)
+                    .name("size").value(size)
+                    .name("totalHits").value(result.totalHits())
+                    .name("results").beginArray();
+                for (InvertedIndex.ScoredDoc doc : result.docs()) {
+                    Ticket ticket = ticketRepository.findById(doc.docId());
+                    if (ticket == null) continue;
+                    json.beginObject();
+                    writeTicketFields(json, ticket, TICKET_FIELDS);
+                    json.name("score").value(doc.score(), 4).endObject();
+                }
+                json.endArray().endObject();
+            });
+        }
+    }
+
+    /**
+     * Requête de tableau de bord sur les index bitmap, sans parcourir les tickets :
+     * {@code GET /api/tickets/query?statut=EN_COURS,ASSIGNE&priorite=Haute&agent=pierre&depuis=&jusqua=&limit=50}.
+     * Plusieurs valeurs d'un même critère (séparées par des virgules) sont combinées par OU,
+     * les critères entre eux par ET. Renvoie le nombre total, la répartition par statut et
+     * les {@code limit} tickets les plus récents.
+     */
+    class TicketQueryHandler implements HttpHandler {
+        private static final int DEFAULT_LIMIT = 50;
+        private static final int MAX_LIMIT = 500;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            Map<String, String> params = parseQuery(exchange);
+            TicketBitmapIndex.Requete requete;
+            int limit;
+            try {
+                Set<StatutTicket> statuts = EnumSet.noneOf(StatutTicket.class);
+                for (String value : splitValues(params.get("statut"))) {
+                    statuts.add(parseStatut(value));
+                }
+                Set<UUID> agents = new HashSet<>();
+                for (String value : splitValues(params.get("agent"))) {
+                    agents.add(parseAgent(value));
+                }
+                requete = new TicketBitmapIndex.Requete(statuts, new HashSet<>(splitValues(params.get("priorite"))),
+                    agents, parseDate(params.get("depuis")), parseDate(params.get("jusqua")));
+                limit = Integer.parseInt(params.getOrDefault("limit", String.valueOf(DEFAULT_LIMIT)));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                sendJsonResponse(exchange, 400, "{\"error\": \"" + escapeJson(e.getMessage()) + "\"}");
+                return;
+            }
+            if (limit < 0 || limit > MAX_LIMIT) {
+                sendJsonResponse(exchange, 400, "{\"error\": \"0 <= limit <= " + MAX_LIMIT + " attendu\"}");
+                return;
+            }
+
+            TicketBitmapIndex index = portail.getFiltresTickets();
+            RoaringBitmap selection = index.query(requete);
+            int[] ids = selection.toArray();
+
+            Map<StatutTicket, Integer> parStatut = index.compterParStatut(selection);
+            sendJson(exchange, json -> {
+                json.beginObject().name("count").value(ids.length).name("parStatut");
+                writeCounts(json, parStatut);
+                json.name("tickets").beginArray();
+                // Identifiants croissants avec la création : les plus récents sont en fin de tableau
+                for (int i = ids.length - 1, taken = 0; i >= 0 && taken < limit; i--) {
+                    Ticket ticket = ticketRepository.findById(ids[i]);
+                    if (ticket == null) continue;
+                    writeTicket(json, ticket);
+                    taken++;
+                }
+                json.endArray().endObject();
+            });
+        }
+    }
+
+    /** Nom de l'énumération ou libellé, sans tenir compte de la casse. */
+    private StatutTicket parseStatut(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        for (StatutTicket statut : StatutTicket.values()) {
+            if (statut.name().equalsIgnoreCase(value) || statut.getLibelle().equalsIgnoreCase(value)) {
+                return statut;
+            }
+        }
+        throw new IllegalArgumentException("Statut inconnu: " + value);
+    }
+
+    /** Identifiant UUID ou clé de l'agent ("pierre"). */
+    private UUID parseAgent(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        SupportClient agent = supportAgents.get(value);
+        return agent != null ? agent.getId() : UUID.fromString(value);
+    }
+
+    private String emptyToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    /** Valeurs séparées par des virgules, vides ignorées. */
+    private List<String> splitValues(String value) {
+        List<String> values = new ArrayList<>();
+        if (value != null) {
+            for (String part : value.split(",")) {
+                if (!part.isBlank()) {
+                    values.add(part.trim());
+                }
+            }
+        }
+        return values;
+    }
+
+    /** Date ISO (2024-01-31) ou null si absente. */
+    private LocalDate parseDate(String value) {
+        return value == null || value.isBlank() ? null : LocalDate.parse(value.trim());
+    }
+
+    private ArticleIndex.TicketSuggestions suggestArticles(String titre, String description) {
+        return portail.suggererArticles(titre, description, TICKET_SUGGESTIONS,
+            TimeUnit.MILLISECONDS.toNanos(config.getKbSuggestBudgetMillis()));
+    }
+
+    private void writeTicketSuggestions(JsonWriter json, ArticleIndex.TicketSuggestions suggestions)
+            throws IOException {
+        json.beginObject()
+            .name("complete").value(suggestions.complete())
+            .name("elapsedMicros").value(suggestions.elapsedMicros())
+            .name("articles").beginArray();
+        for (ArticleIndex.SearchHit hit : suggestions.hits()) {
+            writeSearchHit(json, hit);
+        }
+        json.endArray().endObject();
+    }
+
+    private void writeSearchHit(JsonWriter json, ArticleIndex.SearchHit hit) throws IOException {
+        json.beginObject()
+            .name("id").value(hit.article().getId())
+            .name("titre").value(orEmpty(hit.article().getTitre()))
+            .name("score").value(hit.score(), 4)
+            .name("snippet").value(orEmpty(hit.snippet()))
+            .endObject();
+    }
+
+    /** Comptes par statut, sous la forme {"OUVERT": n, ...}. */
+    private void writeCounts(JsonWriter json, Map<StatutTicket, Integer> counts) throws IOException {
+        json.beginObject();
+        for (Map.Entry<StatutTicket, Integer> entry : counts.entrySet()) {
+            json.name(entry.getKey().name()).value(entry.getValue());
+        }
+        json.endObject();
+    }
+
     class TicketActionHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
@@ -200,46 +812,205 @@ public class WebServer {
             }
 
             Map<String, String> params = parseFormData(exchange);
-            int ticketId = Integer.parseInt(params.getOrDefault("ticketId", "0"));
+            int ticketId;
+            // Optional optimistic-concurrency check: 409 if the ticket changed since the client read it
+            long version;
+            try {
+                ticketId = Integer.parseInt(params.getOrDefault("ticketId", "0"));
+                version = Long.parseLong(params.getOrDefault("version", String.valueOf(Ticket.VERSION_QUELCONQUE)));
+            } catch (NumberFormatException e) {
+                sendJsonResponse(exchange, 400, "{\"error\": \"ticketId et version doivent etre des entiers\"}");
+                return;
+            }
             String action = params.getOrDefault("action", "");
             
-            Ticket ticket = tickets.get(ticketId);
+            Ticket ticket = ticketRepository.findById(ticketId);
             if (ticket == null) {
                 sendJsonResponse(exchange, "{\"error\": \"Ticket not found\"}");
                 return;
             }
 
-            String previousState = ticket.getState().getNomEtat();
-            
+            String error;
+            try {
+                error = applyAction(ticket, action, version, params);
+            } catch (ConflitVersionException e) {
+                sendJsonResponse(exchange, 409,
+                    "{\"error\": \"" + escapeJson(e.getMessage()) + "\", \"version\": " + e.getVersionActuelle() + "}");
+                return;
+            } catch (IllegalStateException e) {
+                // Transition refused by the current state or not declared in MachineEtats
+                sendJsonResponse(exchange, 409,
+                    "{\"error\": \"" + escapeJson(e.getMessage()) + "\", \"version\": " + ticket.getVersion() + "}");
+                return;
+            }
+            if (error != null) {
+                sendJsonResponse(exchange, error);
+                return;
+            }
+
+            sendJson(exchange, json -> writeTicket(json, ticket));
+        }
+
+        /** Applies the action; returns a JSON error, or null on success. */
+        private String applyAction(Ticket ticket, String action, long version, Map<String, String> params) {
+            int ticketId = ticket.getId();
+            StatutTicket previous = ticket.getStatut();
+            String previousState = previous.getLibelle();
+
             switch (action) {
                 case "assigner" -> {
                     String agentId = params.getOrDefault("agentId", "");
                     SupportClient agent = supportAgents.get(agentId);
                     if (agent != null) {
-                        ticket.assigner(agent.getId());
-                        logEvent("[ASSIGN] Ticket #" + ticketId + " assigne a " + agent.getNom() + " (" + previousState + " -> " + ticket.getState().getNomEtat() + ")");
+                        ticket.assigner(agent.getId(), version);
+                        logEvent("ASSIGN", ticket, previous, "Ticket #" + ticketId + " assigne a " + agent.getNom() + " (" + previousState + " -> " + ticket.getState().getNomEtat() + ")");
                     }
                 }
                 case "resoudre" -> {
                     String solution = params.getOrDefault("solution", "Solution non specifiee");
-                    ticket.resoudre(solution);
-                    logEvent("[RESOLVED] Ticket #" + ticketId + " resolu (" + previousState + " -> " + ticket.getState().getNomEtat() + ")");
+                    ticket.resoudre(solution, version);
+                    logEvent("RESOLVED", ticket, previous, "Ticket #" + ticketId + " resolu (" + previousState + " -> " + ticket.getState().getNomEtat() + ")");
                 }
                 case "fermer" -> {
-                    ticket.fermer();
-                    logEvent("[CLOSED] Ticket #" + ticketId + " ferme (" + previousState + " -> " + ticket.getState().getNomEtat() + ")");
+                    ticket.fermer(version);
+                    logEvent("CLOSED", ticket, previous, "Ticket #" + ticketId + " ferme (" + previousState + " -> " + ticket.getState().getNomEtat() + ")");
                 }
                 default -> {
-                    sendJsonResponse(exchange, "{\"error\": \"Unknown action\"}");
-                    return;
+                    return "{\"error\": \"Unknown action\"}";
                 }
             }
-
-            sendJsonResponse(exchange, ticketToJson(ticket));
+            return null;
         }
     }
 
     class ArticleHandler implements HttpHandler {
+        /** {@code /api/articles/{id}/related} : articles similaires. */
+        private static final Pattern RELATED = Pattern.compile("/api/articles/(\\d+)/related/?");
+        private static final int DEFAULT_RELATED = 5;
+        private static final int MAX_RELATED = 50;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            Matcher related = RELATED.matcher(path);
+            if (related.matches()) {
+                handleRelated(exchange, Integer.parseInt(related.group(1)));
+                return;
+            }
+            if (!path.equals("/api/articles") && !path.equals("/api/articles/")) {
+                sendJsonResponse(exchange, 404, "{\"error\": \"Not found\"}");
+                return;
+            }
+
+            var articles = portail.getBaseConnaissance().values();
+            sendConditional(exchange, etag("a", portail.getBaseConnaissance().version()), json -> {
+                json.beginArray();
+                for (var article : articles) {
+                    json.beginObject()
+                        .name("id").value(article.getId())
+                        .name("titre").value(orEmpty(article.getTitre()))
+                        .name("contenu").value(orEmpty(article.getContenu()))
+                        .endObject();
+                }
+                json.endArray();
+            });
+        }
+
+        private void handleRelated(HttpExchange exchange, int articleId) throws IOException {
+            ArticleIndex index = portail.getBaseConnaissance();
+            if (index.get(articleId) == null) {
+                sendJsonResponse(exchange, 404, "{\"error\": \"Article not found\"}");
+                return;
+            }
+            int limit;
+            try {
+                limit = Integer.parseInt(parseQuery(exchange).getOrDefault("limit", String.valueOf(DEFAULT_RELATED)));
+            } catch (NumberFormatException e) {
+                sendJsonResponse(exchange, 400, "{\"error\": \"limit doit etre un entier\"}");
+                return;
+            }
+            limit = Math.max(1, Math.min(limit, MAX_RELATED));
+
+            String etag = etag("a", index.version(), index.getVectors().version());
+            if (notModified(exchange, etag)) {
+                return;
+            }
+            List<ArticleIndex.RelatedArticle> related = index.related(articleId, limit);
+            sendCached(exchange, etag, json -> {
+                json.beginObject()
+                    .name("id").value(articleId)
+                    .name("kernel").value(index.getVectors().getKernelName())
+                    .name("related").beginArray();
+                for (ArticleIndex.RelatedArticle article : related) {
+                    json.beginObject()
+                        .name("id").value(article.article().getId())
+                        .name("titre").value(orEmpty(article.article().getTitre()))
+                        .name("similarity").value(article.similarity(), 4)
+                        .endObject();
+                }
+                json.endArray().endObject();
+            });
+        }
+    }
+
+    /** Recherche classée BM25 : {@code GET /api/articles/search?q=...&page=1&size=10}. */
+    class ArticleSearchHandler implements HttpHandler {
+        private static final int DEFAULT_SIZE = 10;
+        private static final int MAX_SIZE = 100;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            Map<String, String> params = parseQuery(exchange);
+            String query = params.getOrDefault("q", "");
+            int page;
+            int size;
+            try {
+                page = Integer.parseInt(params.getOrDefault("page", "1"));
+                size = Integer.parseInt(params.getOrDefault("size", String.valueOf(DEFAULT_SIZE)));
+            } catch (NumberFormatException e) {
+                sendJsonResponse(exchange, 400, "{\"error\": \"page et size doivent etre des entiers\"}");
+                return;
+            }
+            if (page < 1 || size < 1 || size > MAX_SIZE) {
+                sendJsonResponse(exchange, 400,
+                    "{\"error\": \"page >= 1 et 1 <= size <= " + MAX_SIZE + " attendus\"}");
+                return;
+            }
+
+            ArticleIndex.SearchPage result = portail.getBaseConnaissance()
+                .search(query, (int) Math.min(Integer.MAX_VALUE, (long) (page - 1) * size), size);
+
+            sendJson(exchange, json -> {
+                json.beginObject()
+                    .name("query").value(query)
+                    .name("page").value(page)
+                    .name("size").value(size)
+                    .name("totalHits").value(result.totalHits())
+                    .name("didYouMean").value(result.didYouMean())
+                    .name("corrected").value(result.corrected())
+                    .name("results").beginArray();
+                for (ArticleIndex.SearchHit hit : result.hits()) {
+                    writeSearchHit(json, hit);
+                }
+                json.endArray().endObject();
+            });
+        }
+    }
+
+    /** Complétion à la frappe : {@code GET /api/articles/suggest?prefix=...&limit=5}. */
+    class ArticleSuggestHandler implements HttpHandler {
+        private static final int DEFAULT_LIMIT = 5;
+
         @Override
         public void handle(HttpExchange exchange) throws IOException {
             if (!"GET".equals(exchange.getRequestMethod())) {
@@ -247,22 +1018,40 @@ public class WebServer {
                 return;
             }
 
-            var articles = portail.consulterBaseConnaissance();
-            StringBuilder json = new StringBuilder("[");
-            boolean first = true;
-            for (var article : articles) {
-                if (!first) json.append(",");
-                json.append("{")
-                    .append("\"titre\":\"").append(escapeJson(article.getTitre())).append("\",")
-                    .append("\"contenu\":\"").append(escapeJson(article.getContenu())).append("\"")
-                    .append("}");
-                first = false;
+            Map<String, String> params = parseQuery(exchange);
+            String prefix = params.getOrDefault("prefix", "").stripLeading();
+            int limit;
+            try {
+                limit = Integer.parseInt(params.getOrDefault("limit", String.valueOf(DEFAULT_LIMIT)));
+            } catch (NumberFormatException e) {
+                sendJsonResponse(exchange, 400, "{\"error\": \"limit doit etre un entier\"}");
+                return;
             }
-            json.append("]");
-            sendJsonResponse(exchange, json.toString());
+            limit = Math.max(1, Math.min(limit, ArticleIndex.MAX_SUGGESTIONS));
+
+            List<PrefixTrie.Suggestion> suggestions = prefix.isEmpty()
+                ? List.of() : portail.getBaseConnaissance().suggest(prefix, limit);
+            sendJson(exchange, json -> {
+                json.beginObject().name("prefix").value(prefix).name("suggestions").beginArray();
+                for (PrefixTrie.Suggestion suggestion : suggestions) {
+                    json.beginObject()
+                        .name("text").value(suggestion.text())
+                        .name("type").value(suggestion.isTitle() ? "titre" : "terme");
+                    if (suggestion.isTitle()) {
+                        json.name("articleId").value(suggestion.articleId());
+                    }
+                    json.name("weight").value(suggestion.weight()).endObject();
+                }
+                json.endArray().endObject();
+            });
         }
     }
 
+    /**
+     * Journal du tableau de bord : {@code GET /api/events?since=<séquence>&limit=50}.
+     * Seuls les événements postérieurs à {@code since} sont renvoyés, du plus ancien au plus
+     * récent ; le client repart de {@code lastSequence} à l'appel suivant.
+     */
     class EventHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
@@ -271,84 +1060,470 @@ public class WebServer {
                 return;
             }
 
-            StringBuilder json = new StringBuilder("[");
-            boolean first = true;
-            for (String event : eventLog) {
-                if (!first) json.append(",");
-                json.append("\"").append(escapeJson(event)).append("\"");
-                first = false;
+            Map<String, String> params = parseQuery(exchange);
+            long since;
+            int limit;
+            try {
+                since = Long.parseLong(params.getOrDefault("since", "0"));
+                limit = Integer.parseInt(params.getOrDefault("limit", String.valueOf(EVENTS_SHOWN)));
+            } catch (NumberFormatException e) {
+                sendJsonResponse(exchange, 400, "{\"error\": \"since et limit doivent etre des entiers\"}");
+                return;
+            }
+            if (since < 0 || limit < 1 || limit > eventLog.capacity()) {
+                sendJsonResponse(exchange, 400,
+                    "{\"error\": \"since >= 0 et 1 <= limit <= " + eventLog.capacity() + " attendus\"}");
+                return;
             }
-            json.append("]");
-            sendJsonResponse(exchange, json.toString());
+
+            // Tagged by the last published sequence actually read, not the last one claimed
+            EventLog.Page page = eventLog.since(since, limit);
+            sendConditional(exchange, etag("e", page.lastSequence()), json -> {
+                json.beginObject()
+                    .name("lastSequence").value(page.lastSequence())
+                    .name("truncated").value(page.truncated())
+                    .name("events").beginArray();
+                for (EventLog.Event event : page.events()) {
+                    writeEvent(json, event);
+                }
+                json.endArray().endObject();
+            });
         }
     }
 
+    /**
+     * Flux temps réel {@code GET /api/stream} (Server-Sent Events) : trames {@code ticket}
+     * (nouvel état d'un ticket) et {@code removed} (pierre tombale), identifiées par le jeton
+     * de version du journal des changements ; {@code log} (événement du journal, non repris) ;
+     * {@code reset} (reprise impossible, tout recharger). La reprise part de l'en-tête
+     * {@code Last-Event-ID} envoyé par EventSource, ou du paramètre {@code lastEventId}, et relit
+     * le journal des changements : aucune trame de ticket n'est perdue tant que le rattrapage
+     * tient dans la file de la connexion.
+     */
+    class StreamHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            String lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+            if (lastEventId == null) {
+                lastEventId = parseQuery(exchange).get("lastEventId");
+            }
+            String resumeFrom = lastEventId;
+            eventStream.open(exchange, () -> catchUp(resumeFrom));
+        }
+
+        /** Changements depuis le jeton du client, ou null si la reprise est impossible (autre instance). */
+        private List<EventStream.Frame> catchUp(String lastEventId) {
+            if (lastEventId == null || lastEventId.isBlank()) {
+                return List.of();
+            }
+            long since;
+            try {
+                since = changeLog.versionDuJeton(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (since < 0) {
+                return null;
+            }
+            TicketChangeLog.Delta delta = changeLog.since(since, config.getStreamBufferSize());
+            return delta.suite() ? null : changeFrames(delta.changes());
+        }
+    }
+
+    private void writeEvent(JsonWriter json, EventLog.Event event) throws IOException {
+        String heure = HEURE.format(event.timestamp());
+        json.beginObject()
+            .name("sequence").value(event.sequence())
+            .name("timestamp").value(event.timestamp().toString())
+            .name("type").value(event.type());
+        if (event.ticketId() != 0) {
+            json.name("ticketId").value(event.ticketId());
+        }
+        if (event.from() != null) {
+            json.name("from").value(event.from().name());
+        }
+        if (event.to() != null) {
+            json.name("to").value(event.to().name());
+        }
+        json.name("message").value(event.message())
+            .name("text").value("[" + heure + "] [" + event.type() + "] " + event.message())
+            .endObject();
+    }
+
     class ClientHandler implements HttpHandler {
+        /** {@code /api/clients/{id}/tickets?page=1&size=20&depuis=&jusqua=} : tickets du client. */
+        private static final Pattern TICKETS = Pattern.compile("/api/clients/(\\d+)/tickets/?");
+        private static final int DEFAULT_SIZE = 20;
+        private static final int MAX_SIZE = 100;
+
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            StringBuilder json = new StringBuilder("[");
-            boolean first = true;
-            for (Client client : clients.values()) {
-                if (!first) json.append(",");
-                json.append("{")
-                    .append("\"id\":").append(client.getId()).append(",")
-                    .append("\"nom\":\"").append(escapeJson(client.getNom())).append("\",")
-                    .append("\"email\":\"").append(escapeJson(client.getEmail())).append("\"")
-                    .append("}");
-                first = false;
+            Matcher tickets = TICKETS.matcher(exchange.getRequestURI().getPath());
+            if (tickets.matches()) {
+                handleClientTickets(exchange, Integer.parseInt(tickets.group(1)));
+                return;
             }
-            json.append("]");
-            sendJsonResponse(exchange, json.toString());
+            // Clients are only loaded at startup
+            sendConditional(exchange, etag("c", 0), json -> {
+                json.beginArray();
+                for (Client client : clients.values()) {
+                    json.beginObject()
+                        .name("id").value(client.getId())
+                        .name("nom").value(orEmpty(client.getNom()))
+                        .name("email").value(orEmpty(client.getEmail()))
+                        .endObject();
+                }
+                json.endArray();
+            });
+        }
+
+        /** Page de tickets du plus récent au plus ancien, avec les comptes par statut du client. */
+        private void handleClientTickets(HttpExchange exchange, int clientId) throws IOException {
+            if (!clients.containsKey(clientId)) {
+                sendJsonResponse(exchange, 404, "{\"error\": \"Client not found\"}");
+                return;
+            }
+            Map<String, String> params = parseQuery(exchange);
+            int page;
+            int size;
+            LocalDate depuis;
+            LocalDate jusqua;
+            try {
+                page = Integer.parseInt(params.getOrDefault("page", "1"));
+                size = Integer.parseInt(params.getOrDefault("size", String.valueOf(DEFAULT_SIZE)));
+                depuis = parseDate(params.get("depuis"));
+                jusqua = parseDate(params.get("jusqua"));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                sendJsonResponse(exchange, 400, "{\"error\": \"" + escapeJson(e.getMessage()) + "\"}");
+                return;
+            }
+            if (page < 1 || size < 1 || size > MAX_SIZE) {
+                sendJsonResponse(exchange, 400,
+                    "{\"error\": \"page >= 1 et 1 <= size <= " + MAX_SIZE + " attendus\"}");
+                return;
+            }
+
+            // Ticket contents (change log) and the client's page and counts (index)
+            String etag = etag("ct", changeLog.version(), portail.getTicketsParClient().version());
+            if (notModified(exchange, etag)) {
+                return;
+            }
+            ClientTicketIndex.Page result = portail.pageTickets(clientId, depuis, jusqua,
+                (int) Math.min(Integer.MAX_VALUE, (long) (page - 1) * size), size);
+            Map<StatutTicket, Integer> parStatut = portail.compterTicketsParStatut(clientId);
+            sendCached(exchange, etag, json -> {
+                json.beginObject()
+                    .name("clientId").value(clientId)
+                    .name("page").value(page)
+                    .name("size").value(size)
+                    .name("total").value(result.total())
+                    .name("parStatut");
+                writeCounts(json, parStatut);
+                json.name("tickets").beginArray();
+                for (int ticketId : result.ticketIds()) {
+                    Ticket ticket = ticketRepository.findById(ticketId);
+                    if (ticket == null) continue;
+                    writeTicket(json, ticket);
+                }
+                json.endArray().endObject();
+            });
         }
     }
 
     class AgentHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            StringBuilder json = new StringBuilder("[");
-            boolean first = true;
-            for (Map.Entry<String, SupportClient> entry : supportAgents.entrySet()) {
-                if (!first) json.append(",");
-                SupportClient agent = entry.getValue();
-                json.append("{")
-                    .append("\"id\":\"").append(entry.getKey()).append("\",")
-                    .append("\"nom\":\"").append(escapeJson(agent.getNom())).append("\",")
-                    .append("\"departement\":\"").append(escapeJson(agent.getSpecialite())).append("\"")
-                    .append("}");
-                first = false;
-            }
-            json.append("]");
-            sendJsonResponse(exchange, json.toString());
-        }
-    }
-
-    private String ticketToJson(Ticket ticket) {
-        return "{" +
-            "\"id\":" + ticket.getId() + "," +
-            "\"titre\":\"" + escapeJson(ticket.getTitre()) + "\"," +
-            "\"description\":\"" + escapeJson(ticket.getDescription()) + "\"," +
-            "\"priorite\":\"" + escapeJson(ticket.getPriorite()) + "\"," +
-            "\"statut\":\"" + ticket.getStatut().getLibelle() + "\"," +
-            "\"etat\":\"" + ticket.getState().getNomEtat() + "\"," +
-            "\"solution\":\"" + escapeJson(ticket.getSolution() != null ? ticket.getSolution() : "") + "\"," +
-            "\"dateCreation\":\"" + ticket.getDateCreation().toString() + "\"" +
-            "}";
+            // Agents are only loaded at startup
+            sendConditional(exchange, etag("g", 0), json -> {
+                json.beginArray();
+                for (Map.Entry<String, SupportClient> entry : supportAgents.entrySet()) {
+                    SupportClient agent = entry.getValue();
+                    json.beginObject()
+                        .name("id").value(entry.getKey())
+                        .name("nom").value(orEmpty(agent.getNom()))
+                        .name("departement").value(orEmpty(agent.getSpecialite()))
+                        .endObject();
+                }
+                json.endArray();
+            });
+        }
+    }
+
+    class StateMachineHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            sendJson(exchange, json -> {
+                json.beginArray();
+                for (Map.Entry<StatutTicket, Map<ActionTicket, StatutTicket>> entry
+                        : MachineEtats.getTransitions().entrySet()) {
+                    StatutTicket statut = entry.getKey();
+                    json.beginObject()
+                        .name("statut").value(statut.name())
+                        .name("libelle").value(statut.getLibelle())
+                        .name("etat").value(MachineEtats.etat(statut).getNomEtat())
+                        .name("transitions").beginObject();
+                    for (Map.Entry<ActionTicket, StatutTicket> transition : entry.getValue().entrySet()) {
+                        json.name(transition.getKey().name()).value(transition.getValue().name());
+                    }
+                    json.endObject().endObject();
+                }
+                json.endArray();
+            });
+        }
+    }
+
+    class NotificationMetricsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            sendJson(exchange, json -> {
+                json.beginObject()
+                    .name("mode").value(notificationDispatcher == null ? "synchrone" : "async")
+                    .name("coalescing");
+                if (notificationCoalescer == null) {
+                    json.nullValue();
+                } else {
+                    json.beginObject()
+                        .name("windowMillis").value(notificationCoalescer.getWindowMillis())
+                        .name("received").value(notificationCoalescer.getReceived())
+                        .name("flushed").value(notificationCoalescer.getFlushed())
+                        .name("coalesced").value(notificationCoalescer.getCoalesced())
+                        .endObject();
+                }
+                if (notificationDispatcher != null) {
+                    AsyncNotificationDispatcher.Metrics metrics = notificationDispatcher.getMetrics();
+                    json.name("submitted").value(metrics.submitted())
+                        .name("delivered").value(metrics.delivered())
+                        .name("dropped").value(metrics.dropped())
+                        .name("failed").value(metrics.failed())
+                        .name("queueDepth").value(metrics.queueDepth())
+                        .name("observers").value(metrics.observers())
+                        .name("oldestPendingMillis").value(metrics.oldestPendingMillis())
+                        .name("lastLagMillis").value(metrics.lastLagMillis())
+                        .name("maxLagMillis").value(metrics.maxLagMillis());
+                }
+                json.name("responseCache").beginObject()
+                    .name("entries").value(responseCache.size())
+                    .name("hits").value(responseCache.getHits())
+                    .name("misses").value(responseCache.getMisses())
+                    .name("notModified").value(notModified.get())
+                    .endObject();
+                if (loadShedder != null) {
+                    json.name("overload").beginObject()
+                        .name("rejected503").value(loadShedder.getRefusees())
+                        .name("closed").value(loadShedder.getFermees())
+                        .endObject();
+                }
+                json.name("stream").beginObject()
+                    .name("connections").value(eventStream.getConnections())
+                    .name("evicted").value(eventStream.getEvicted())
+                    .name("lastEventId").value(eventStream.getLastId())
+                    .endObject();
+                json.endObject();
+            });
+        }
+    }
+
+    private void writeTombstone(JsonWriter json, int ticketId, TicketChangeLog.Nature nature, long version)
+            throws IOException {
+        json.beginObject()
+            .name("id").value(ticketId)
+            .name("reason").value(nature.name())
+            .name("changeVersion").value(version)
+            .endObject();
+    }
+
+    private void writeTicket(JsonWriter json, Ticket ticket) throws IOException {
+        json.beginObject();
+        writeTicketFields(json, ticket, TICKET_FIELDS);
+        json.endObject();
+    }
+
+    /** Projection : seuls les champs demandés, toujours dans l'ordre de {@link #TICKET_FIELDS}. */
+    private void writeTicketFields(JsonWriter json, Ticket ticket, Set<String> fields) throws IOException {
+        for (String field : TICKET_FIELDS) {
+            if (!fields.contains(field)) continue;
+            json.name(field);
+            switch (field) {
+                case "id" -> json.value(ticket.getId());
+                case "titre" -> json.value(orEmpty(ticket.getTitre()));
+                case "description" -> json.value(orEmpty(ticket.getDescription()));
+                case "priorite" -> json.value(orEmpty(ticket.getPriorite()));
+                case "statut" -> json.value(ticket.getStatut().getLibelle());
+                case "etat" -> json.value(ticket.getState().getNomEtat());
+                case "solution" -> json.value(orEmpty(ticket.getSolution()));
+                case "version" -> json.value(ticket.getVersion());
+                case "changeVersion" -> json.value(ticket.getChangeVersion());
+                case "clientId" -> json.value(ticket.getClientId());
+                case "parentId" -> json.value(ticket.getParentId());
+                case "dateCreation" -> json.value(ticket.getDateCreation().toString());
+                default -> throw new IllegalStateException("Champ non gere: " + field);
+            }
+        }
+    }
+
+    private static String orEmpty(String text) {
+        return text != null ? text : "";
     }
 
     private String escapeJson(String text) {
-        if (text == null) return "";
-        return text.replace("\\", "\\\\")
-                   .replace("\"", "\\\"")
-                   .replace("\n", "\\n")
-                   .replace("\r", "\\r")
-                   .replace("\t", "\\t");
+        return JsonWriter.escape(text);
+    }
+
+    /** Corps d'une réponse JSON, écrit au fil de l'eau. */
+    @FunctionalInterface
+    private interface JsonBody {
+        void writeTo(JsonWriter json) throws IOException;
+    }
+
+    private void sendJson(HttpExchange exchange, JsonBody body) throws IOException {
+        sendJson(exchange, 200, body);
+    }
+
+    /**
+     * Réponse JSON écrite directement dans le corps, en transfert chunked : la taille n'a pas
+     * à être connue d'avance et le document n'est jamais entièrement en mémoire. Si le client
+     * accepte gzip, le corps est compressé au fil de l'eau dès qu'il dépasse le seuil
+     * configuré. Les petites réponses construites d'avance (erreurs) passent par
+     * {@link #sendJsonResponse}.
+     */
+    private void sendJson(HttpExchange exchange, int status, JsonBody body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        OutputStream out;
+        if (gzipAccepted(exchange)) {
+            exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+            out = new CompressingOutputStream(exchange, status, config.getGzipThreshold());
+        } else {
+            exchange.sendResponseHeaders(status, 0);
+            out = exchange.getResponseBody();
+        }
+        try (JsonWriter json = new JsonWriter(out)) {
+            body.writeTo(json);
+        }
+    }
+
+    /** Compression activée et gzip accepté par le client. */
+    private boolean gzipAccepted(HttpExchange exchange) {
+        return config.getGzipThreshold() >= 0
+            && ContentNegotiation.acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+    }
+
+    /**
+     * Étiquette des octets envoyés : la variante gzip a la sienne, pour qu'un cache partagé ne
+     * confonde pas les deux corps ; un corps non compressé garde l'étiquette de base, même
+     * servi à un client qui accepte gzip.
+     */
+    private static String bodyEtag(String etag, boolean gzip) {
+        return gzip ? ContentNegotiation.gzipVariant(etag) : etag;
+    }
+
+    /** ETag fort : instance du serveur, collection et versions lues avant de construire la réponse. */
+    private String etag(String collection, long... versions) {
+        StringBuilder tag = new StringBuilder("\"").append(etagEpoch).append('-').append(collection);
+        for (long version : versions) {
+            tag.append('-').append(version);
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Répond 304 si le client a déjà la représentation étiquetée {@code etag}, ou sa variante
+     * gzip s'il accepte gzip ({@code If-None-Match}) ; sinon n'envoie rien et renvoie false.
+     */
+    private boolean notModified(HttpExchange exchange, String etag) throws IOException {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        String tag;
+        if (ContentNegotiation.etagMatches(ifNoneMatch, etag)) {
+            tag = etag;
+        } else if (gzipAccepted(exchange)
+                && ContentNegotiation.etagMatches(ifNoneMatch, bodyEtag(etag, true))) {
+            tag = bodyEtag(etag, true);
+        } else {
+            return false;
+        }
+        notModified.incrementAndGet();
+        exchange.getResponseHeaders().set("ETag", tag);
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+        return true;
+    }
+
+    private void sendConditional(HttpExchange exchange, String etag, JsonBody body) throws IOException {
+        if (!notModified(exchange, etag)) {
+            sendCached(exchange, etag, body);
+        }
+    }
+
+    /**
+     * Réponse 200 étiquetée. Les octets déjà produits pour cette URI et cette étiquette sont
+     * renvoyés depuis le cache ; sinon le corps est sérialisé une fois puis gardé.
+     * Le navigateur doit revalider ({@code no-cache}) : une collection inchangée coûte un 304.
+     * Au-delà du seuil, un client qui accepte gzip reçoit la variante compressée, elle aussi
+     * gardée : la compression n'est payée qu'une fois par version.
+     */
+    private void sendCached(HttpExchange exchange, String etag, JsonBody body) throws IOException {
+        boolean gzip = gzipAccepted(exchange);
+        String key = gzip ? exchange.getRequestURI() + " gzip" : exchange.getRequestURI().toString();
+        ResponseCache.Body cached = responseCache.get(key, etag);
+        if (cached == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+            try (JsonWriter json = new JsonWriter(out)) {
+                body.writeTo(json);
+            }
+            byte[] bytes = out.toByteArray();
+            if (gzip && bytes.length >= config.getGzipThreshold()) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+                try (GZIPOutputStream gzipOut = new GZIPOutputStream(compressed)) {
+                    gzipOut.write(bytes);
+                }
+                cached = new ResponseCache.Body(compressed.toByteArray(), true);
+            } else {
+                cached = new ResponseCache.Body(bytes, false);
+            }
+            responseCache.put(key, etag, cached);
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().set("ETag", bodyEtag(etag, cached.gzip()));
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        if (cached.gzip()) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, cached.bytes().length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(cached.bytes());
+        }
+    }
+
+    /** Petit document JSON en mémoire (trames du flux temps réel). */
+    private static String toJson(JsonBody body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonWriter json = new JsonWriter(out, 512)) {
+            body.writeTo(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
     }
 
     private void sendJsonResponse(HttpExchange exchange, String json) throws IOException {
+        sendJsonResponse(exchange, 200, json);
+    }
+
+    private void sendJsonResponse(HttpExchange exchange, int status, String json) throws IOException {
         exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
         exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
         byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
-        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.sendResponseHeaders(status, bytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
             os.write(bytes);
         }
@@ -372,6 +1547,22 @@ public class WebServer {
         return params;
     }
 
+    private Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+
+        if (query != null && !query.isEmpty()) {
+            for (String param : query.split("&")) {
+                String[] pair = param.split("=", 2);
+                params.put(
+                    URLDecoder.decode(pair[0], StandardCharsets.UTF_8),
+                    pair.length == 2 ? URLDecoder.decode(pair[1], StandardCharsets.UTF_8) : ""
+                );
+            }
+        }
+        return params;
+    }
+
     private String getIndexHtml() {
         return """
 <!DOCTYPE html>
@@ -529,6 +1720,7 @@ public class WebServer {
             margin-bottom: 5px;
         }
         .article-content { color: #aaa; font-size: 0.9rem; }
+        .article-content mark { background: #e94560; color: #fff; border-radius: 2px; }
         .patterns-info {
             display: grid;
             grid-template-columns: 1fr 1fr;
@@ -618,6 +1810,7 @@ public class WebServer {
                         <label>Description</label>
                         <textarea id="ticketDesc" rows="3" placeholder="Décrivez le problème..."></textarea>
                     </div>
+                    <div id="ticketSuggestions"></div>
                     <div class="form-group">
                         <label>Priorite</label>
                         <select id="ticketPriority">
@@ -649,6 +1842,9 @@ public class WebServer {
             <!-- Knowledge Base -->
             <div class="card">
                 <h2>Base de Connaissances</h2>
+                <input type="text" id="articleSearch" list="articleSuggestions" placeholder="Rechercher un article..."
+                       oninput="suggestArticles()" onchange="searchArticles()">
+                <datalist id="articleSuggestions"></datalist>
                 <div id="articleList">
                     <!-- Populated dynamically -->
                 </div>
@@ -694,11 +1890,32 @@ public class WebServer {
             loadTickets();
             loadArticles();
             loadEvents();
-            
-            // Refresh events every 2 seconds
-            setInterval(loadEvents, 2000);
+            openStream();
         });
 
+        // Tickets and events are pushed by the server; polling only where EventSource is missing
+        function openStream() {
+            if (!window.EventSource) {
+                setInterval(() => { loadEvents(); syncTickets(); }, 2000);
+                return;
+            }
+            const stream = new EventSource('/api/stream');
+            // Ticket frames are replayed from Last-Event-ID after a reconnection, 'log' frames are not
+            let reconnecting = false;
+            stream.addEventListener('open', () => {
+                if (reconnecting) loadEvents();
+                reconnecting = true;
+            });
+            stream.addEventListener('ticket', m => applyTicket(JSON.parse(m.data)));
+            stream.addEventListener('log', m => applyEvents([JSON.parse(m.data)]));
+            stream.addEventListener('removed', m => removeTicket(JSON.parse(m.data)));
+            // Missed frames no longer replayable (server restarted, client evicted too long)
+            stream.addEventListener('reset', () => {
+                syncTickets();
+                loadEvents();
+            });
+        }
+
         async function loadClients() {
             const response = await fetch('/api/clients');
             const clients = await response.json();
@@ -717,9 +1934,70 @@ public class WebServer {
             ).join('');
         }
 
-        async function loadTickets() {
-            const response = await fetch('/api/tickets');
-            const tickets = await response.json();
+        // Last version seen per ticket, sent back with actions (409 if stale)
+        const ticketVersions = {};
+
+        // Most recent first, one page at a time; "Charger plus" follows the server cursor
+        const TICKET_PAGE = 50;
+        let ticketCursor = null;
+        let loadedTickets = [];
+        // Token (epoch-version) of the global version up to which every change is applied
+        // (advanced by full loads and deltas only)
+        let ticketChangeToken = null;
+
+        async function loadTickets(more = false) {
+            const params = new URLSearchParams({ sort: 'date', order: 'desc', limit: TICKET_PAGE });
+            if (more && ticketCursor) params.set('cursor', ticketCursor);
+            const response = await fetch('/api/tickets?' + params);
+            const page = await response.json();
+            ticketCursor = page.nextCursor;
+            loadedTickets = more ? loadedTickets.concat(page.tickets) : page.tickets;
+            if (!more) ticketChangeToken = page.version;
+            loadedTickets.forEach(t => ticketVersions[t.id] = t.version);
+            renderTickets();
+        }
+
+        // Tickets changed or removed since ticketChangeToken, instead of reloading the list
+        async function syncTickets() {
+            if (!ticketChangeToken) return loadTickets();
+            let more = true;
+            while (more) {
+                const response = await fetch('/api/tickets?sinceVersion=' + encodeURIComponent(ticketChangeToken));
+                const delta = await response.json();
+                if (delta.reset) {
+                    ticketChangeToken = null;  // server restarted
+                    return loadTickets();
+                }
+                delta.tickets.forEach(applyTicket);
+                delta.tombstones.forEach(removeTicket);
+                ticketChangeToken = delta.version;
+                more = delta.more;
+            }
+        }
+
+        function removeTicket(tombstone) {
+            ticketVersions[tombstone.id] = Infinity;  // late frames for it are ignored
+            loadedTickets = loadedTickets.filter(t => t.id !== tombstone.id);
+            renderTickets();
+        }
+
+        // New state of one ticket (stream or action response); older versions are ignored
+        function applyTicket(t) {
+            if (ticketVersions[t.id] > t.version) return;
+            ticketVersions[t.id] = t.version;
+            const index = loadedTickets.findIndex(loaded => loaded.id === t.id);
+            if (index >= 0) {
+                loadedTickets[index] = t;
+            } else if (loadedTickets.length === 0 || t.dateCreation >= loadedTickets[0].dateCreation) {
+                loadedTickets.unshift(t);
+            } else {
+                return;  // not loaded yet, will come with "Charger plus"
+            }
+            renderTickets();
+        }
+
+        function renderTickets() {
+            const tickets = loadedTickets;
             const container = document.getElementById('ticketList');
             
             if (tickets.length === 0) {
@@ -753,7 +2031,9 @@ public class WebServer {
                         </div>
                     </div>
                 `;
-            }).join('');
+            }).join('') + (ticketCursor
+                ? '<button class="btn-small" onclick="loadTickets(true)">Charger plus</button>'
+                : '');
         }
 
         async function loadArticles() {
@@ -769,21 +2049,112 @@ public class WebServer {
             `).join('');
         }
 
+        async function suggestArticles() {
+            const prefix = document.getElementById('articleSearch').value;
+            const list = document.getElementById('articleSuggestions');
+            if (!prefix.trim()) {
+                list.innerHTML = '';
+                loadArticles();
+                return;
+            }
+            const response = await fetch('/api/articles/suggest?limit=8&prefix=' + encodeURIComponent(prefix));
+            const result = await response.json();
+            list.innerHTML = result.suggestions.map(s => `<option value="${s.text}">`).join('');
+        }
+
+        async function searchArticles() {
+            const q = document.getElementById('articleSearch').value.trim();
+            if (!q) {
+                loadArticles();
+                return;
+            }
+            const response = await fetch('/api/articles/search?size=20&q=' + encodeURIComponent(q));
+            const page = await response.json();
+            const container = document.getElementById('articleList');
+
+            const hint = page.didYouMean
+                ? `<p style="color: #888;">${page.corrected ? 'Resultats pour' : 'Vouliez-vous dire'} <em>${page.didYouMean}</em> ?</p>`
+                : '';
+            container.innerHTML = hint + page.results.map(a => `
+                <div class="article-item">
+                    <div class="article-title">${a.titre}</div>
+                    <div class="article-content">${a.snippet}</div>
+                </div>
+            `).join('') || '<p style="color: #888; text-align: center;">Aucun article</p>';
+        }
+
+        // Only events newer than the last sequence seen are fetched; newest shown first
+        const EVENTS_SHOWN = 50;
+        let lastEventSequence = 0;
+        let shownEvents = [];
+
         async function loadEvents() {
-            const response = await fetch('/api/events');
-            const events = await response.json();
+            const response = await fetch('/api/events?since=' + lastEventSequence);
+            const page = await response.json();
+            if (page.lastSequence < lastEventSequence) {
+                shownEvents = [];  // server restarted
+            }
+            lastEventSequence = page.lastSequence;
+            if (page.events.length === 0 && shownEvents.length > 0) {
+                return;
+            }
+            shownEvents = page.events.reverse().concat(shownEvents).slice(0, EVENTS_SHOWN);
+            renderEvents();
+        }
+
+        // Events pushed by the stream, oldest first
+        function applyEvents(events) {
+            const fresh = events.filter(e => e.sequence > lastEventSequence);
+            if (fresh.length === 0) return;
+            lastEventSequence = fresh[fresh.length - 1].sequence;
+            shownEvents = fresh.reverse().concat(shownEvents).slice(0, EVENTS_SHOWN);
+            renderEvents();
+        }
+
+        function renderEvents() {
             const container = document.getElementById('eventLog');
             
-            if (events.length === 0) {
+            if (shownEvents.length === 0) {
                 container.innerHTML = '<p style="color: #888; text-align: center;">Aucun événement</p>';
                 return;
             }
             
-            container.innerHTML = events.map(e => 
-                `<div class="event-item">${e}</div>`
+            container.innerHTML = shownEvents.map(e => 
+                `<div class="event-item">${e.text}</div>`
             ).join('');
         }
 
+        // Articles suggested while the ticket is being typed (debounced)
+        let suggestTimer = null;
+        function scheduleTicketSuggestions() {
+            clearTimeout(suggestTimer);
+            suggestTimer = setTimeout(loadTicketSuggestions, 250);
+        }
+
+        async function loadTicketSuggestions() {
+            const params = new URLSearchParams({
+                titre: document.getElementById('ticketTitle').value,
+                description: document.getElementById('ticketDesc').value
+            });
+            const response = await fetch('/api/tickets/suggest', { method: 'POST', body: params });
+            renderTicketSuggestions(await response.json());
+        }
+
+        function renderTicketSuggestions(suggestions) {
+            const container = document.getElementById('ticketSuggestions');
+            container.innerHTML = suggestions.articles.length === 0 ? '' :
+                '<p style="color: #888;">Ces articles pourraient resoudre votre probleme :</p>' +
+                suggestions.articles.map(a => `
+                    <div class="article-item">
+                        <div class="article-title">${a.titre}</div>
+                        <div class="article-content">${a.snippet}</div>
+                    </div>
+                `).join('');
+        }
+
+        document.getElementById('ticketTitle').addEventListener('input', scheduleTicketSuggestions);
+        document.getElementById('ticketDesc').addEventListener('input', scheduleTicketSuggestions);
+
         // Create Ticket
         document.getElementById('createTicketForm').addEventListener('submit', async (e) => {
             e.preventDefault();
@@ -795,16 +2166,16 @@ public class WebServer {
                 priorite: document.getElementById('ticketPriority').value
             });
             
-            await fetch('/api/tickets', {
+            const response = await fetch('/api/tickets', {
                 method: 'POST',
                 body: formData
             });
+            const created = await response.json();
             
             document.getElementById('ticketTitle').value = '';
             document.getElementById('ticketDesc').value = '';
-            
-            loadTickets();
-            loadEvents();
+            renderTicketSuggestions(created.suggestedArticles);
+            if (created.id) applyTicket(created);
         });
 
         // Modals
@@ -822,43 +2193,43 @@ public class WebServer {
             document.getElementById(modalId).classList.remove('active');
         }
 
+        async function sendAction(params) {
+            const version = ticketVersions[params.ticketId];
+            if (version !== undefined) params.version = version;
+            const response = await fetch('/api/tickets/action', {
+                method: 'POST',
+                body: new URLSearchParams(params)
+            });
+            if (response.status === 409) {
+                alert('Ce ticket a ete modifie par un autre agent. La liste va etre rechargee.');
+                loadTickets();
+                return;
+            }
+            const result = await response.json();
+            if (!result.error) applyTicket(result);
+        }
+
         async function confirmAssign() {
             const ticketId = document.getElementById('assignTicketId').value;
             const agentId = document.getElementById('agentSelect').value;
             
-            await fetch('/api/tickets/action', {
-                method: 'POST',
-                body: new URLSearchParams({ ticketId, action: 'assigner', agentId })
-            });
+            await sendAction({ ticketId, action: 'assigner', agentId });
             
             closeModal('assignModal');
-            loadTickets();
-            loadEvents();
         }
 
         async function confirmResolve() {
             const ticketId = document.getElementById('resolveTicketId').value;
             const solution = document.getElementById('solutionText').value;
             
-            await fetch('/api/tickets/action', {
-                method: 'POST',
-                body: new URLSearchParams({ ticketId, action: 'resoudre', solution })
-            });
+            await sendAction({ ticketId, action: 'resoudre', solution });
             
             closeModal('resolveModal');
             document.getElementById('solutionText').value = '';
-            loadTickets();
-            loadEvents();
         }
 
         async function closeTicket(ticketId) {
-            await fetch('/api/tickets/action', {
-                method: 'POST',
-                body: new URLSearchParams({ ticketId, action: 'fermer' })
-            });
-            
-            loadTickets();
-            loadEvents();
+            await sendAction({ ticketId, action: 'fermer' });
         }
     </script>
 </body>